@@ -0,0 +1,156 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandHandler;
+import com.github.saqie.mediatej.api.CommandValidator;
+import com.github.saqie.mediatej.api.ErrorBuilder;
+import com.github.saqie.mediatej.api.PureCommandValidator;
+
+class BenchmarkClassPack {
+
+    public static class BenchmarkErrorBuilder implements ErrorBuilder {
+
+        private int errors;
+
+        public void addError() {
+            errors++;
+        }
+
+        @Override
+        public void build() {
+            if (errors > 0) {
+                throw new IllegalStateException("Validation failed");
+            }
+        }
+
+        @Override
+        public boolean hasErrors() {
+            return errors > 0;
+        }
+    }
+
+    public static class FirstCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class SecondCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class ThirdCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class FourthCommand implements Command {
+
+        int value;
+
+    }
+
+    public interface MarkerCommand extends Command {
+
+    }
+
+    public static class MarkedCommand implements MarkerCommand {
+
+        int value;
+
+    }
+
+    public static class FirstCommandHandler implements CommandHandler<FirstCommand> {
+
+        @Override
+        public void handle(FirstCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class MarkerCommandHandler implements CommandHandler<MarkerCommand> {
+
+        @Override
+        public void handle(MarkerCommand command) {
+            ((MarkedCommand) command).value++;
+        }
+    }
+
+    public static class SecondCommandHandler implements CommandHandler<SecondCommand> {
+
+        @Override
+        public void handle(SecondCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class ThirdCommandHandler implements CommandHandler<ThirdCommand> {
+
+        @Override
+        public void handle(ThirdCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class FourthCommandHandler implements CommandHandler<FourthCommand> {
+
+        @Override
+        public void handle(FourthCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class BlockingCommand implements Command {
+
+    }
+
+    /**
+     * Simulates a handler waiting on JDBC or HTTP
+     */
+    public static class BlockingCommandHandler implements CommandHandler<BlockingCommand> {
+
+        @Override
+        public void handle(BlockingCommand command) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static class FirstCommandValidator implements CommandValidator<FirstCommand, BenchmarkErrorBuilder> {
+
+        @Override
+        public void validate(FirstCommand command, BenchmarkErrorBuilder errorBuilder) {
+            if (command.value < 0) {
+                errorBuilder.addError();
+            }
+        }
+    }
+
+    public static class PureFirstCommandValidator extends FirstCommandValidator implements PureCommandValidator<FirstCommand, BenchmarkErrorBuilder> {
+
+        @Override
+        public boolean isValid(FirstCommand command) {
+            return command.value >= 0;
+        }
+    }
+
+    static Command[] commands() {
+        return new Command[]{new FirstCommand(), new SecondCommand(), new ThirdCommand(), new FourthCommand()};
+    }
+
+    static MediateConfigurer registerAll(MediateConfigurer configurer) {
+        return configurer
+                .registerErrorBuilder(new BenchmarkErrorBuilder())
+                .register(new FirstCommandHandler(), new FirstCommandValidator())
+                .register(new SecondCommandHandler())
+                .register(new ThirdCommandHandler())
+                .register(new FourthCommandHandler());
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.DispatchMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans out a burst of blocking commands with sendAsync and waits for all of them.
+ * Compares a platform thread pool with virtual thread dispatch, the VIRTUAL_THREAD variant requires Java 21+.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingDispatchBenchmark {
+
+    @Param({"EXECUTOR", "VIRTUAL_THREAD"})
+    public DispatchMode dispatchMode;
+
+    @Param({"10000"})
+    public int inFlightCommands;
+
+    @Param({"200"})
+    public int platformThreads;
+
+    private ExecutorService platformExecutor;
+    private Mediate mediate;
+    private CompletableFuture<?>[] futures;
+
+    @Setup
+    public void setUp() {
+        platformExecutor = Executors.newFixedThreadPool(platformThreads);
+        mediate = new MediateCoreConfigurer()
+                .dispatchMode(dispatchMode)
+                .build()
+                .registerExecutor(platformExecutor)
+                .register(new BenchmarkClassPack.BlockingCommandHandler())
+                .build();
+        futures = new CompletableFuture<?>[inFlightCommands];
+    }
+
+    @TearDown
+    public void tearDown() {
+        platformExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void sendAsyncAndJoin() {
+        for (int i = 0; i < inFlightCommands; i++) {
+            futures[i] = mediate.sendAsync(new BenchmarkClassPack.BlockingCommand());
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandBundle;
+import com.github.saqie.mediatej.api.ErrorBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the class keyed dispatch table with the canonical name keyed lookup it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BundleResolverBenchmark {
+
+    private BundleResolver bundleResolver;
+    private Map<String, CommandBundle<? extends Command, ? extends ErrorBuilder>> canonicalNameMap;
+    private Command[] commands;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        MediateConfigurer configurer = BenchmarkClassPack.registerAll(new MediateConfigurer());
+        canonicalNameMap = new HashMap<>();
+        configurer.commandBundleMap().forEach((type, bundle) -> canonicalNameMap.put(type.getCanonicalName(), bundle));
+        bundleResolver = new BundleResolver(configurer);
+        commands = BenchmarkClassPack.commands();
+    }
+
+    private Command nextCommand() {
+        Command command = commands[index];
+        index = (index + 1) & (commands.length - 1);
+        return command;
+    }
+
+    @Benchmark
+    public Object classKeyedResolve() {
+        return bundleResolver.resolve(nextCommand());
+    }
+
+    @Benchmark
+    public Object canonicalNameResolve() {
+        return canonicalNameMap.get(nextCommand().getClass().getCanonicalName());
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validated sends from several threads for every error builder instance mode.
+ * ONE is included as the lower bound only, it shares a single error builder between all threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ErrorBuilderModeBenchmark {
+
+    @Param({"ONE", "PER_SEND", "THREAD_LOCAL", "POOLED"})
+    public ErrorBuilderInstanceMode errorBuilderInstanceMode;
+
+    private Mediate mediate;
+
+    @State(Scope.Thread)
+    public static class ThreadCommand {
+
+        BenchmarkClassPack.FirstCommand command = new BenchmarkClassPack.FirstCommand();
+
+    }
+
+    @Setup
+    public void setUp() {
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(errorBuilderInstanceMode)
+                .build();
+        mediate = BenchmarkClassPack.registerAll(configurer).build();
+    }
+
+    @Benchmark
+    public void sendWithValidator(ThreadCommand threadCommand) {
+        mediate.send(threadCommand.command);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Send throughput without a journal, with batched flushes of the journal and with a flush on every command.
+ * Commands are serialized to a fixed 64 byte record, so the numbers show the cost of the journal itself rather than of a serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"NONE", "BATCHED", "SYNC"})
+    public String journal;
+
+    private Path directory;
+    private Mediate mediate;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mediatej-journal-benchmark");
+        MediateConfigurer configurer = new MediateConfigurer()
+                .register(new BenchmarkClassPack.FirstCommandHandler());
+        if ("BATCHED".equals(journal)) {
+            configurer.journal(directory, new FixedSizeSerializer(), 16 * 1024 * 1024, Duration.ofMillis(10));
+        } else if ("SYNC".equals(journal)) {
+            configurer.journal(directory, new FixedSizeSerializer(), 16 * 1024 * 1024, Duration.ZERO);
+        }
+        mediate = configurer.build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mediate.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void send() {
+        mediate.send(new BenchmarkClassPack.FirstCommand());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sendFromFourThreads() {
+        mediate.send(new BenchmarkClassPack.FirstCommand());
+    }
+
+    public static class FixedSizeSerializer implements CommandSerializer {
+
+        private final byte[] record = new byte[64];
+
+        @Override
+        public byte[] serialize(Command command) {
+            return record;
+        }
+
+        @Override
+        public Command deserialize(byte[] data) {
+            return new BenchmarkClassPack.FirstCommand();
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot path cost of metrics collection, single threaded and with four threads sending the same command type
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean collectMetrics;
+
+    private Mediate mediate;
+
+    @State(Scope.Thread)
+    public static class ThreadCommands {
+
+        BenchmarkClassPack.FirstCommand validatedCommand = new BenchmarkClassPack.FirstCommand();
+        BenchmarkClassPack.SecondCommand handlerOnlyCommand = new BenchmarkClassPack.SecondCommand();
+
+    }
+
+    @Setup
+    public void setUp() {
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .collectMetrics(collectMetrics)
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.THREAD_LOCAL)
+                .build();
+        mediate = BenchmarkClassPack.registerAll(configurer).build();
+    }
+
+    @Benchmark
+    public void sendWithoutValidator(ThreadCommands commands) {
+        mediate.send(commands.handlerOnlyCommand);
+    }
+
+    @Benchmark
+    public void sendWithValidator(ThreadCommands commands) {
+        mediate.send(commands.validatedCommand);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sendWithValidatorFourThreads(ThreadCommands commands) {
+        mediate.send(commands.validatedCommand);
+    }
+
+}
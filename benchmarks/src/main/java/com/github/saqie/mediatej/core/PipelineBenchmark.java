@@ -0,0 +1,50 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.PipelineBehavior;
+import com.github.saqie.mediatej.api.PipelineStep;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send cost against the number of registered pass-through pipeline behaviors
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int behaviors;
+
+    private Mediate mediate;
+    private BenchmarkClassPack.SecondCommand command;
+
+    public static class PassThroughBehavior implements PipelineBehavior {
+
+        @Override
+        public <T extends Command> void handle(T command, PipelineStep<T> next) {
+            next.proceed(command);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        MediateConfigurer configurer = new MediateConfigurer();
+        for (int i = 0; i < behaviors; i++) {
+            configurer.registerBehavior(new PassThroughBehavior());
+        }
+        mediate = BenchmarkClassPack.registerAll(configurer).build();
+        command = new BenchmarkClassPack.SecondCommand();
+    }
+
+    @Benchmark
+    public void send() {
+        mediate.send(command);
+    }
+
+}
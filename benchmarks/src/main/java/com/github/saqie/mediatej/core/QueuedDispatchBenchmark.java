@@ -0,0 +1,64 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.DispatchMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a burst of cheap commands with sendAsync and waits for all of them.
+ * Compares the bounded dispatch queue with a fixed thread pool of the same size backed by an unbounded queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueuedDispatchBenchmark {
+
+    @Param({"EXECUTOR", "QUEUED"})
+    public DispatchMode dispatchMode;
+
+    @Param({"1000"})
+    public int burst;
+
+    @Param({"2"})
+    public int workers;
+
+    private ExecutorService executor;
+    private Mediate mediate;
+    private CompletableFuture<?>[] futures;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(workers);
+        mediate = new MediateCoreConfigurer()
+                .dispatchMode(dispatchMode)
+                .queueWorkers(workers)
+                .queueCapacity(256)
+                .build()
+                .registerExecutor(executor)
+                .register(new BenchmarkClassPack.FirstCommandHandler())
+                .build();
+        futures = new CompletableFuture<?>[burst];
+    }
+
+    @TearDown
+    public void tearDown() {
+        mediate.close();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void sendAsyncAndJoin() {
+        for (int i = 0; i < burst; i++) {
+            futures[i] = mediate.sendAsync(new BenchmarkClassPack.FirstCommand());
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.CommandHandler;
+import com.github.saqie.mediatej.core.configuration.HandlerConflictMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of registering thousands of handlers, every registration resolves the handler command type
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Param({"1000", "10000"})
+    public int handlers;
+
+    private List<CommandHandler<?>> commandHandlers;
+
+    @Setup
+    public void setUp() {
+        commandHandlers = new ArrayList<>(handlers);
+        for (int i = 0; i < handlers; i++) {
+            switch (i % 4) {
+                case 0:
+                    commandHandlers.add(new BenchmarkClassPack.FirstCommandHandler());
+                    break;
+                case 1:
+                    commandHandlers.add(new BenchmarkClassPack.SecondCommandHandler());
+                    break;
+                case 2:
+                    commandHandlers.add(new BenchmarkClassPack.ThirdCommandHandler());
+                    break;
+                default:
+                    commandHandlers.add(new BenchmarkClassPack.FourthCommandHandler());
+            }
+        }
+    }
+
+    @Benchmark
+    public MediateConfigurer register() {
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .handlerConflictMode(HandlerConflictMode.OVERRIDE)
+                .build();
+        for (CommandHandler<?> commandHandler : commandHandlers) {
+            configurer.register(commandHandler);
+        }
+        return configurer;
+    }
+
+    @Benchmark
+    public Mediate registerAndBuild() {
+        return register().build();
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.core.configuration.HandlerResolutionMode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send throughput of two threads while a third thread keeps replacing the handler of another command type in the registry.
+ * The idle group runs the same senders next to a thread that only burns CPU, so both groups compete for the same cores.
+ * With no tokens between swaps the table is replaced back to back, every swap makes senders resolve their command class once more.
+ * The swap group measures the first send after a swap on a single thread.
+ * In HIERARCHY mode the senders send a command handled through its interface, a swap of an unrelated type
+ * reuses its resolved route instead of walking the hierarchy again.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryChurnBenchmark {
+
+    @Param({"0", "10"})
+    public int tokensBetweenSwaps;
+
+    @Param({"EXACT", "HIERARCHY"})
+    public HandlerResolutionMode handlerResolutionMode;
+
+    private Mediate mediate;
+    private MediateRegistry registry;
+    private BenchmarkClassPack.SecondCommandHandler secondHandler;
+    private Command command;
+
+    @Setup
+    public void setUp() {
+        mediate = new MediateCoreConfigurer()
+                .handlerResolutionMode(handlerResolutionMode)
+                .build()
+                .register(new BenchmarkClassPack.FirstCommandHandler())
+                .register(new BenchmarkClassPack.MarkerCommandHandler())
+                .register(new BenchmarkClassPack.SecondCommandHandler())
+                .build();
+        command = HandlerResolutionMode.HIERARCHY == handlerResolutionMode
+                ? new BenchmarkClassPack.MarkedCommand()
+                : new BenchmarkClassPack.FirstCommand();
+        registry = mediate.registry();
+        secondHandler = new BenchmarkClassPack.SecondCommandHandler();
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(2)
+    public void send() {
+        mediate.send(command);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void replace() {
+        registry.replace(secondHandler);
+        Blackhole.consumeCPU(tokensBetweenSwaps * 100L);
+    }
+
+    // Cost of the first send after a swap on its own, without threads competing for the cores
+    @Benchmark
+    @Group("swap")
+    @GroupThreads(1)
+    public void replaceThenSend() {
+        registry.replace(secondHandler);
+        mediate.send(command);
+    }
+
+    @Benchmark
+    @Group("idle")
+    @GroupThreads(2)
+    public void sendWithoutChurn() {
+        mediate.send(command);
+    }
+
+    @Benchmark
+    @Group("idle")
+    @GroupThreads(1)
+    public void idle() {
+        Blackhole.consumeCPU(tokensBetweenSwaps * 100L);
+    }
+
+}
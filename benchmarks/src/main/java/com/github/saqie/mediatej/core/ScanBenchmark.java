@@ -0,0 +1,55 @@
+package com.github.saqie.mediatej.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of a package scan without a scan index and with an index written by an earlier scan
+ * Run from the benchmarks jar, so the class path check costs one file status for the jar. Classes are already loaded
+ * after the first invocation, the results show the cost of listing and checking the classes rather than of loading them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanBenchmark {
+
+    private static final String SCANNED_PACKAGE = "com.github.saqie.mediatej.core.scanned";
+
+    private Path indexFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        indexFile = Files.createTempFile("mediatej-scan", ".idx");
+        Files.delete(indexFile);
+        new MediateCoreConfigurer()
+                .scanIndexFile(indexFile)
+                .build()
+                .scan(SCANNED_PACKAGE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(indexFile);
+    }
+
+    @Benchmark
+    public MediateConfigurer scanWithoutIndex() {
+        return new MediateConfigurer().scan(SCANNED_PACKAGE);
+    }
+
+    @Benchmark
+    public MediateConfigurer scanWithIndex() {
+        return new MediateCoreConfigurer()
+                .scanIndexFile(indexFile)
+                .build()
+                .scan(SCANNED_PACKAGE);
+    }
+
+}
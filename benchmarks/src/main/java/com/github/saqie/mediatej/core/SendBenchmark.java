@@ -0,0 +1,60 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded send path. Run with {@code -prof gc} to check the allocation rate,
+ * handler only sends and validated sends with a reused error builder should report 0 B/op.
+ * Pure validator sends skip the error builder in every mode, so they should report 0 B/op in PER_SEND mode as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendBenchmark {
+
+    @Param({"ONE", "PER_SEND"})
+    public ErrorBuilderInstanceMode errorBuilderInstanceMode;
+
+    private Mediate mediate;
+    private Mediate pureValidatorMediate;
+    private BenchmarkClassPack.FirstCommand validatedCommand;
+    private BenchmarkClassPack.SecondCommand handlerOnlyCommand;
+
+    @Setup
+    public void setUp() {
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(errorBuilderInstanceMode)
+                .build();
+        mediate = BenchmarkClassPack.registerAll(configurer).build();
+        pureValidatorMediate = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(errorBuilderInstanceMode)
+                .build()
+                .registerErrorBuilder(new BenchmarkClassPack.BenchmarkErrorBuilder())
+                .register(new BenchmarkClassPack.FirstCommandHandler(), new BenchmarkClassPack.PureFirstCommandValidator())
+                .build();
+        validatedCommand = new BenchmarkClassPack.FirstCommand();
+        handlerOnlyCommand = new BenchmarkClassPack.SecondCommand();
+    }
+
+    @Benchmark
+    public void sendWithoutValidator() {
+        mediate.send(handlerOnlyCommand);
+    }
+
+    @Benchmark
+    public void sendWithValidator() {
+        mediate.send(validatedCommand);
+    }
+
+    @Benchmark
+    public void sendWithPureValidator() {
+        pureValidatorMediate.send(validatedCommand);
+    }
+
+}
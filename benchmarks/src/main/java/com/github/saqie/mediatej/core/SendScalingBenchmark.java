@@ -0,0 +1,68 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send throughput with a growing number of threads, each thread cycles through all registered command types
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendScalingBenchmark {
+
+    private Mediate mediate;
+
+    @State(Scope.Thread)
+    public static class ThreadCommands {
+
+        Command[] commands = BenchmarkClassPack.commands();
+        int index;
+
+        Command next() {
+            Command command = commands[index];
+            index = (index + 1) & (commands.length - 1);
+            return command;
+        }
+
+    }
+
+    @Setup
+    public void setUp() {
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.THREAD_LOCAL)
+                .build();
+        mediate = BenchmarkClassPack.registerAll(configurer).build();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void oneThread(ThreadCommands commands) {
+        mediate.send(commands.next());
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void twoThreads(ThreadCommands commands) {
+        mediate.send(commands.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void fourThreads(ThreadCommands commands) {
+        mediate.send(commands.next());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void eightThreads(ThreadCommands commands) {
+        mediate.send(commands.next());
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.github.saqie.mediatej.core.scanned;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandHandler;
+
+/**
+ * Commands and handlers found by ScanBenchmark, every command is a scanned class that is not a handler
+ */
+public class ScannedClassPack {
+
+    public static class FirstCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class FirstCommandHandler implements CommandHandler<FirstCommand> {
+
+        @Override
+        public void handle(FirstCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class SecondCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class SecondCommandHandler implements CommandHandler<SecondCommand> {
+
+        @Override
+        public void handle(SecondCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class ThirdCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class ThirdCommandHandler implements CommandHandler<ThirdCommand> {
+
+        @Override
+        public void handle(ThirdCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class FourthCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class FourthCommandHandler implements CommandHandler<FourthCommand> {
+
+        @Override
+        public void handle(FourthCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class FifthCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class FifthCommandHandler implements CommandHandler<FifthCommand> {
+
+        @Override
+        public void handle(FifthCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class SixthCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class SixthCommandHandler implements CommandHandler<SixthCommand> {
+
+        @Override
+        public void handle(SixthCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class SeventhCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class SeventhCommandHandler implements CommandHandler<SeventhCommand> {
+
+        @Override
+        public void handle(SeventhCommand command) {
+            command.value++;
+        }
+    }
+
+    public static class EighthCommand implements Command {
+
+        int value;
+
+    }
+
+    public static class EighthCommandHandler implements CommandHandler<EighthCommand> {
+
+        @Override
+        public void handle(EighthCommand command) {
+            command.value++;
+        }
+    }
+}
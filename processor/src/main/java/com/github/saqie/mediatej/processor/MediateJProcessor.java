@@ -0,0 +1,182 @@
+package com.github.saqie.mediatej.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Finds command handlers, query handlers, event handlers and validators at compile time and generates a type index per package,
+ * so MediateJ resolves their generic parameters without reflection during registration.
+ * Classes the index cannot reference (private classes, classes bound to private types) and handlers that appear
+ * in a package after its index was written are skipped, MediateJ resolves them by reflection as usual.
+ */
+@SupportedAnnotationTypes("*")
+public class MediateJProcessor extends AbstractProcessor {
+
+    static final String INDEX_CLASS_NAME = "MediateJTypeIndex";
+    static final String INDEX_INTERFACE = "com.github.saqie.mediatej.core.index.MediateTypeIndex";
+
+    private static final String COMMAND_HANDLER = "com.github.saqie.mediatej.api.CommandHandler";
+    private static final String QUERY_HANDLER = "com.github.saqie.mediatej.api.QueryHandler";
+    private static final String COMMAND_VALIDATOR = "com.github.saqie.mediatej.api.CommandValidator";
+    private static final String EVENT_HANDLER = "com.github.saqie.mediatej.api.EventHandler";
+
+    private final Map<String, List<TypeIndexEntry>> pendingEntries = new TreeMap<>();
+    private final Set<String> writtenPackages = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement commandHandler = processingEnv.getElementUtils().getTypeElement(COMMAND_HANDLER);
+        if (commandHandler == null) {
+            // MediateJ is not on the compile classpath, nothing to index
+            return false;
+        }
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        TypeElement queryHandler = processingEnv.getElementUtils().getTypeElement(QUERY_HANDLER);
+        TypeElement commandValidator = processingEnv.getElementUtils().getTypeElement(COMMAND_VALIDATOR);
+        TypeElement eventHandler = processingEnv.getElementUtils().getTypeElement(EVENT_HANDLER);
+        for (Element rootElement : roundEnv.getRootElements()) {
+            scan(rootElement, commandHandler, queryHandler, commandValidator, eventHandler);
+        }
+        writePendingIndexes();
+        return false;
+    }
+
+    private void scan(Element element, TypeElement commandHandler, TypeElement queryHandler, TypeElement commandValidator, TypeElement eventHandler) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        if (type.getKind().isClass() && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+            index(type, commandHandler, queryHandler, commandValidator, eventHandler);
+        }
+        for (Element enclosedElement : type.getEnclosedElements()) {
+            scan(enclosedElement, commandHandler, queryHandler, commandValidator, eventHandler);
+        }
+    }
+
+    private void index(TypeElement type, TypeElement commandHandler, TypeElement queryHandler, TypeElement commandValidator, TypeElement eventHandler) {
+        String packageName = packageOf(type).getQualifiedName().toString();
+        if (writtenPackages.contains(packageName) || !isAccessible(type, packageName)) {
+            return;
+        }
+        String commandType = accessibleName(packageName, typeArgument(type.asType(), commandHandler, 0));
+        String queryType = accessibleName(packageName, typeArgument(type.asType(), queryHandler, 0));
+        String eventType = accessibleName(packageName, typeArgument(type.asType(), eventHandler, 0));
+        String validatedType = accessibleName(packageName, typeArgument(type.asType(), commandValidator, 0));
+        String errorBuilderType = validatedType == null ? null : accessibleName(packageName, typeArgument(type.asType(), commandValidator, 1));
+        if (commandType == null && queryType == null && eventType == null && (validatedType == null || errorBuilderType == null)) {
+            return;
+        }
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        pendingEntries.computeIfAbsent(packageName, key -> new ArrayList<>())
+                .add(new TypeIndexEntry(binaryName, type.getQualifiedName().toString(), commandType, queryType, eventType,
+                        validatedType, errorBuilderType, type));
+    }
+
+    /**
+     * @return element of the type bound to the given parameter of {@code genericInterface}, null if the type does not
+     * implement the interface, implements it as a raw type or binds the parameter to a type variable
+     */
+    private TypeElement typeArgument(TypeMirror type, TypeElement genericInterface, int parameterIndex) {
+        if (genericInterface == null) {
+            return null;
+        }
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (supertype.getKind() != TypeKind.DECLARED) {
+                continue;
+            }
+            DeclaredType declaredSupertype = (DeclaredType) supertype;
+            if (declaredSupertype.asElement().equals(genericInterface)) {
+                List<? extends TypeMirror> typeArguments = declaredSupertype.getTypeArguments();
+                if (typeArguments.size() <= parameterIndex || typeArguments.get(parameterIndex).getKind() != TypeKind.DECLARED) {
+                    return null;
+                }
+                return (TypeElement) ((DeclaredType) typeArguments.get(parameterIndex)).asElement();
+            }
+            TypeElement typeArgument = typeArgument(supertype, genericInterface, parameterIndex);
+            if (typeArgument != null) {
+                return typeArgument;
+            }
+        }
+        return null;
+    }
+
+    private static String accessibleName(String packageName, TypeElement type) {
+        return type != null && isAccessible(type, packageName) ? type.getQualifiedName().toString() : null;
+    }
+
+    private static boolean isAccessible(TypeElement type, String fromPackage) {
+        boolean samePackage = packageOf(type).getQualifiedName().contentEquals(fromPackage);
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static PackageElement packageOf(Element element) {
+        Element current = element;
+        while (!(current instanceof PackageElement)) {
+            current = current.getEnclosingElement();
+        }
+        return (PackageElement) current;
+    }
+
+    private void writePendingIndexes() {
+        for (Map.Entry<String, List<TypeIndexEntry>> packageEntries : pendingEntries.entrySet()) {
+            String packageName = packageEntries.getKey();
+            try {
+                TypeIndexWriter.write(processingEnv.getFiler(), packageName, packageEntries.getValue());
+                writtenPackages.add(packageName);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write MediateJ type index for package " + packageName + ": " + e.getMessage());
+            }
+        }
+        pendingEntries.clear();
+    }
+
+    private void writeServiceFile() {
+        if (writtenPackages.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject serviceFile = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + INDEX_INTERFACE);
+            try (Writer writer = serviceFile.openWriter()) {
+                for (String packageName : writtenPackages) {
+                    writer.write(TypeIndexWriter.indexClassName(packageName));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
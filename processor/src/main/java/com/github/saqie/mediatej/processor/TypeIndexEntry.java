@@ -0,0 +1,63 @@
+package com.github.saqie.mediatej.processor;
+
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Generic parameters of one indexed class, one column per MediateJ interface, null where the class does not implement
+ * the interface or the bound type can't be referenced from the index
+ */
+final class TypeIndexEntry {
+
+    private final String binaryName;
+    private final String canonicalName;
+    private final String commandType;
+    private final String queryType;
+    private final String eventType;
+    private final String validatedType;
+    private final String errorBuilderType;
+    private final TypeElement element;
+
+    TypeIndexEntry(String binaryName, String canonicalName, String commandType, String queryType, String eventType,
+                   String validatedType, String errorBuilderType, TypeElement element) {
+        this.binaryName = binaryName;
+        this.canonicalName = canonicalName;
+        this.commandType = commandType;
+        this.queryType = queryType;
+        this.eventType = eventType;
+        this.validatedType = validatedType;
+        this.errorBuilderType = errorBuilderType;
+        this.element = element;
+    }
+
+    String binaryName() {
+        return binaryName;
+    }
+
+    String canonicalName() {
+        return canonicalName;
+    }
+
+    String commandType() {
+        return commandType;
+    }
+
+    String queryType() {
+        return queryType;
+    }
+
+    String eventType() {
+        return eventType;
+    }
+
+    String validatedType() {
+        return validatedType;
+    }
+
+    String errorBuilderType() {
+        return errorBuilderType;
+    }
+
+    TypeElement element() {
+        return element;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.saqie.mediatej.processor;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes a type index resolving classes with a string switch on the class name,
+ * the class identity check keeps classes with the same name from another class loader out of the index
+ */
+final class TypeIndexWriter {
+
+    private TypeIndexWriter() {
+    }
+
+    static String indexClassName(String packageName) {
+        return packageName.isEmpty() ? MediateJProcessor.INDEX_CLASS_NAME : packageName + "." + MediateJProcessor.INDEX_CLASS_NAME;
+    }
+
+    static void write(Filer filer, String packageName, List<TypeIndexEntry> entries) throws IOException {
+        TypeElement[] originatingElements = entries.stream().map(TypeIndexEntry::element).toArray(TypeElement[]::new);
+        JavaFileObject sourceFile = filer.createSourceFile(indexClassName(packageName), originatingElements);
+        try (Writer writer = sourceFile.openWriter()) {
+            writer.write(source(packageName, entries));
+        }
+    }
+
+    static String source(String packageName, List<TypeIndexEntry> entries) {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Generated by MediateJ-processor, do not edit\n")
+                .append(" */\n")
+                .append("public final class ").append(MediateJProcessor.INDEX_CLASS_NAME)
+                .append(" implements ").append(MediateJProcessor.INDEX_INTERFACE).append(" {\n");
+
+        appendMethod(source, "commandType", entries, TypeIndexEntry::commandType);
+        appendMethod(source, "queryType", entries, TypeIndexEntry::queryType);
+        appendMethod(source, "eventType", entries, TypeIndexEntry::eventType);
+        appendMethod(source, "validatedType", entries, TypeIndexEntry::validatedType);
+        appendMethod(source, "errorBuilderType", entries, TypeIndexEntry::errorBuilderType);
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private static void appendMethod(StringBuilder source, String methodName, List<TypeIndexEntry> entries, Function<TypeIndexEntry, String> column) {
+        source.append("\n    @Override\n")
+                .append("    public Class<?> ").append(methodName).append("(Class<?> type) {\n")
+                .append("        switch (type.getName()) {\n");
+        for (TypeIndexEntry entry : entries) {
+            if (column.apply(entry) != null) {
+                appendCase(source, entry, column.apply(entry));
+            }
+        }
+        source.append("            default:\n")
+                .append("                return null;\n")
+                .append("        }\n")
+                .append("    }\n");
+    }
+
+    private static void appendCase(StringBuilder source, TypeIndexEntry entry, String resolvedType) {
+        source.append("            case \"").append(entry.binaryName()).append("\":\n")
+                .append("                return type == ").append(entry.canonicalName()).append(".class ? ")
+                .append(resolvedType).append(".class : null;\n");
+    }
+}
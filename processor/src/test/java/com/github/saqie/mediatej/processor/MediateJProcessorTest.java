@@ -0,0 +1,109 @@
+package com.github.saqie.mediatej.processor;
+
+import com.github.saqie.mediatej.core.index.MediateTypeIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediateJProcessorTest {
+
+    private static final String SOURCES = "package sample;\n" +
+            "import com.github.saqie.mediatej.api.*;\n" +
+            "import java.util.List;\n" +
+            "public class Sample {\n" +
+            "    public static class FirstCommand implements Command {}\n" +
+            "    private static class HiddenCommand implements Command {}\n" +
+            "    public static class SampleErrorBuilder implements ErrorBuilder { public void build() {} }\n" +
+            "    public static class FirstHandler implements CommandHandler<FirstCommand> { public void handle(FirstCommand command) {} }\n" +
+            "    public abstract static class BaseHandler<T extends Command> implements CommandHandler<T> {}\n" +
+            "    static class InheritedHandler extends BaseHandler<FirstCommand> { public void handle(FirstCommand command) {} }\n" +
+            "    public static class FirstValidator implements CommandValidator<FirstCommand, SampleErrorBuilder> { public void validate(FirstCommand command, SampleErrorBuilder errorBuilder) {} }\n" +
+            "    public static class ListQuery implements Query<List<String>> {}\n" +
+            "    public static class ListQueryHandler implements QueryHandler<ListQuery, List<String>> { public List<String> handle(ListQuery query) { return List.of(); } }\n" +
+            "    public static class HiddenHandler implements CommandHandler<HiddenCommand> { public void handle(HiddenCommand command) {} }\n" +
+            "    public static class FirstEvent implements Event {}\n" +
+            "    public static class FirstEventHandler implements EventHandler<FirstEvent> { public void handle(FirstEvent event) {} }\n" +
+            "    public static class DualRoleHandler implements CommandHandler<FirstCommand>, EventHandler<FirstEvent> { public void handle(FirstCommand command) {} public void handle(FirstEvent event) {} }\n" +
+            "    public static class GenericValidator<T extends Command, R extends ErrorBuilder> implements CommandValidator<T, R> { public void validate(T command, R errorBuilder) {} }\n" +
+            "}\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should generate type index resolving command handlers, query handlers, event handlers and validators")
+    public void shouldGenerateTypeIndex() throws Exception {
+        // given
+        Path sourceFile = directory.resolve("sample/Sample.java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.writeString(sourceFile, SOURCES);
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+
+        // when
+        compile(sourceFile, classes);
+
+        // then
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader())) {
+            List<MediateTypeIndex> indexes = StreamSupport.stream(ServiceLoader.load(MediateTypeIndex.class, classLoader).spliterator(), false)
+                    .collect(Collectors.toList());
+            assertEquals(1, indexes.size());
+            MediateTypeIndex index = indexes.get(0);
+            assertEquals("sample." + MediateJProcessor.INDEX_CLASS_NAME, index.getClass().getName());
+
+            Class<?> firstCommand = classLoader.loadClass("sample.Sample$FirstCommand");
+            assertEquals(firstCommand, index.commandType(classLoader.loadClass("sample.Sample$FirstHandler")));
+            assertEquals(firstCommand, index.commandType(classLoader.loadClass("sample.Sample$InheritedHandler")));
+            assertEquals(firstCommand, index.validatedType(classLoader.loadClass("sample.Sample$FirstValidator")));
+            assertNull(index.commandType(classLoader.loadClass("sample.Sample$FirstValidator")));
+            assertEquals(classLoader.loadClass("sample.Sample$SampleErrorBuilder"), index.errorBuilderType(classLoader.loadClass("sample.Sample$FirstValidator")));
+            assertEquals(classLoader.loadClass("sample.Sample$ListQuery"), index.queryType(classLoader.loadClass("sample.Sample$ListQueryHandler")));
+            assertEquals(classLoader.loadClass("sample.Sample$FirstEvent"), index.eventType(classLoader.loadClass("sample.Sample$FirstEventHandler")));
+            assertNull(index.commandType(classLoader.loadClass("sample.Sample$HiddenHandler")));
+            assertNull(index.validatedType(classLoader.loadClass("sample.Sample$GenericValidator")));
+            Class<?> dualRoleHandler = classLoader.loadClass("sample.Sample$DualRoleHandler");
+            assertEquals(firstCommand, index.commandType(dualRoleHandler));
+            assertEquals(classLoader.loadClass("sample.Sample$FirstEvent"), index.eventType(dualRoleHandler));
+            assertNull(index.errorBuilderType(classLoader.loadClass("sample.Sample$FirstHandler")));
+        }
+    }
+
+    private static void compile(Path sourceFile, Path classes) throws IOException {
+        // Build the classpath from code sources, test runners do not always expose it in java.class.path
+        String classpath = location(MediateTypeIndex.class) + File.pathSeparator + location(MediateJProcessor.class);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors,
+                "-classpath", classpath,
+                "-processorpath", classpath,
+                "-processor", MediateJProcessor.class.getName(),
+                "-d", classes.toString(),
+                "-s", classes.toString(),
+                sourceFile.toString());
+        assertEquals(0, result, errors.toString());
+    }
+
+    private static String location(Class<?> type) {
+        try {
+            return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.saqie.mediatej.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Command handler that can handle many commands of one type at once, e.g. with a bulk insert
+ * Used by {@link MediateJ#sendAll(java.util.Collection)}, single sends are passed as one element lists
+ */
+public interface BatchCommandHandler<T extends Command> extends CommandHandler<T> {
+
+    void handleAll(List<T> commands);
+
+    @Override
+    default void handle(T command) {
+        handleAll(Collections.singletonList(command));
+    }
+
+}
@@ -6,21 +6,21 @@ import java.util.Optional;
 public final class CommandBundle<T extends Command, R extends ErrorBuilder> {
 
     private final CommandHandler<T> commandHandler;
-    private final CommandValidator<T, R> commandValidator;
+    private final Optional<CommandValidator<T, R>> commandValidator;
 
     public CommandBundle(CommandHandler<T> commandHandler, CommandValidator<T, R> commandValidator) {
         this.commandHandler = commandHandler;
-        this.commandValidator = commandValidator;
+        this.commandValidator = Optional.ofNullable(commandValidator);
     }
 
     public CommandBundle(CommandValidator<? extends Command, ? extends ErrorBuilder> commandValidator, CommandHandler<? extends Command> commandHandler) {
         this.commandHandler = (CommandHandler<T>) commandHandler;
-        this.commandValidator = (CommandValidator<T, R>) commandValidator;
+        this.commandValidator = Optional.ofNullable((CommandValidator<T, R>) commandValidator);
     }
 
     public CommandBundle(CommandHandler<T> commandHandler) {
         this.commandHandler = commandHandler;
-        this.commandValidator = null;
+        this.commandValidator = Optional.empty();
     }
 
     public CommandHandler<T> commandHandler() {
@@ -28,6 +28,6 @@ public final class CommandBundle<T extends Command, R extends ErrorBuilder> {
     }
 
     public Optional<CommandValidator<T, R>> commandValidator() {
-        return Optional.ofNullable(commandValidator);
+        return commandValidator;
     }
 }
@@ -0,0 +1,12 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Converts journaled commands to bytes and back, the bytes must identify the command type as well and must not be empty
+ */
+public interface CommandSerializer {
+
+    byte[] serialize(Command command);
+
+    Command deserialize(byte[] data);
+
+}
@@ -4,4 +4,20 @@ public interface ErrorBuilder {
 
     void build();
 
+    /**
+     * Clears collected errors before the instance is reused.
+     * Called by MediateJ in THREAD_LOCAL and POOLED error builder instance modes.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Returns true if any error was collected since the instance was created or reset.
+     * MediateJ calls build() only when this returns true, override it so the success path skips build().
+     * Required in FAIL_FAST validation mode, where it is checked after every validated command.
+     */
+    default boolean hasErrors() {
+        return true;
+    }
+
 }
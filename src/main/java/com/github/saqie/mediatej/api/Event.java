@@ -0,0 +1,7 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Notification published with {@link MediateJ#publish(Event)} to every subscribed {@link EventHandler}
+ */
+public interface Event {
+}
@@ -0,0 +1,10 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Subscriber of events of type E and of its subtypes, any number of handlers can subscribe to one event type
+ */
+public interface EventHandler<E extends Event> {
+
+    void handle(E event);
+
+}
@@ -0,0 +1,11 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Command carrying a key that identifies its retries and re-sends, e.g. a request id generated by the client
+ * Used when deduplication is enabled for the command type in MediateConfigurer
+ */
+public interface IdempotentCommand extends Command {
+
+    Object idempotencyKey();
+
+}
@@ -2,6 +2,12 @@ package com.github.saqie.mediatej.api;
 
 import com.github.saqie.mediatej.core.exception.MediateJMissingHandlerException;
 
+import com.github.saqie.mediatej.core.exception.MediateJTimeoutException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 public interface MediateJ {
 
     /**
@@ -12,4 +18,53 @@ public interface MediateJ {
      */
     <T extends Command, R extends ErrorBuilder> void send(T command);
 
+    /**
+     * Sends command to proper handler within the given timeout, validation and handling included
+     * Once the timeout passes the sending thread is interrupted and {@link MediateJTimeoutException} is thrown,
+     * the interrupt is cleared before the send returns
+     * Throws {@link MediateJMissingHandlerException} if the handler can't be found
+     *
+     * @param command -> Command instance to send
+     * @param timeout -> Time budget of the send, takes precedence over the deadline configured for the command type
+     */
+    <T extends Command> void send(T command, Duration timeout);
+
+    /**
+     * Sends query to proper handler and returns its result
+     * Throws {@link MediateJMissingHandlerException} if the handler can't be found
+     *
+     * @param query -> Query instance to send
+     * @return result returned by the query handler
+     */
+    <Q extends Query<R>, R> R send(Q query);
+
+    /**
+     * Sends command to proper handler on the configured executor
+     * The command is validated before it is handled, validation errors and {@link MediateJMissingHandlerException}
+     * complete the returned future exceptionally
+     *
+     * @param command -> Command instance to send
+     * @return future completed once the command is handled
+     */
+    <T extends Command> CompletableFuture<Void> sendAsync(T command);
+
+    /**
+     * Sends commands grouped by their type, every group is resolved and validated once with one error builder
+     * All groups are validated before any command is handled, {@link BatchCommandHandler} handles the whole group at once, bypassing pipeline behaviors
+     * The batch runs on the calling thread without deadlines, cached validations, deduplication, the concurrency limit of sendAsync
+     * or per command metrics, every command is validated and the batch takes as long as its handlers
+     * Throws {@link MediateJMissingHandlerException} if the handler for any command type can't be found
+     *
+     * @param commands -> Command instances to send
+     */
+    void sendAll(Collection<? extends Command> commands);
+
+    /**
+     * Publishes event to every event handler subscribed to its type or to any of its supertypes
+     * Handlers are called with the publish strategy set in MediateCoreConfigurer, an event without subscribers is ignored
+     *
+     * @param event -> Event instance to publish
+     */
+    <E extends Event> void publish(E event);
+
 }
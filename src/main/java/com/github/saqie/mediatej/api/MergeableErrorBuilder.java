@@ -0,0 +1,14 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Error builder whose instances can be combined, required by validators registered with PARALLEL execution,
+ * each of them validates with its own instance.
+ */
+public interface MergeableErrorBuilder extends ErrorBuilder {
+
+    /**
+     * Adds errors collected by another instance of the same error builder class.
+     */
+    void merge(ErrorBuilder other);
+
+}
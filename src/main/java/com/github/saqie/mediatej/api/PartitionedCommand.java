@@ -0,0 +1,11 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Command sent asynchronously in order with other commands of the same partition key, e.g. the same account id
+ * Ordering applies when partition lanes are enabled in MediateCoreConfigurer, commands with different keys may run in parallel
+ */
+public interface PartitionedCommand extends Command {
+
+    Object partitionKey();
+
+}
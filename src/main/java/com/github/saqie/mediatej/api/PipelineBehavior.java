@@ -0,0 +1,27 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Step wrapped around command handlers, e.g. timing, transactions, retries or logging
+ * Behaviors are composed once per command type when MediateJ is built, the first registered behavior is the outermost one
+ * Commands are validated before the pipeline runs
+ */
+public interface PipelineBehavior {
+
+    /**
+     * Handles the command, call {@link PipelineStep#proceed(Command)} to pass it to the next behavior or the handler
+     *
+     * @param command -> Command instance being sent
+     * @param next    -> Next behavior in the pipeline or the command handler
+     */
+    <T extends Command> void handle(T command, PipelineStep<T> next);
+
+    /**
+     * Decides whether this behavior is part of the pipeline for the given command type, checked once on build
+     *
+     * @param commandType -> Command class the pipeline is composed for
+     */
+    default boolean supports(Class<? extends Command> commandType) {
+        return true;
+    }
+
+}
@@ -0,0 +1,7 @@
+package com.github.saqie.mediatej.api;
+
+public interface PipelineStep<T extends Command> {
+
+    void proceed(T command);
+
+}
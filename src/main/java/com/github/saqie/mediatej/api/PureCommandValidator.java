@@ -0,0 +1,17 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Validator with a check that needs no error builder, e.g. a stateless validator of required fields
+ * MediateJ calls isValid first and acquires an error builder for validate only when the command is invalid,
+ * so valid commands are checked without any error builder allocation or build() call.
+ */
+public interface PureCommandValidator<T extends Command, R extends ErrorBuilder> extends CommandValidator<T, R> {
+
+    /**
+     * Returns true if the command is valid, must agree with validate and have no side effects
+     *
+     * @param command -> Command to check
+     */
+    boolean isValid(T command);
+
+}
@@ -0,0 +1,7 @@
+package com.github.saqie.mediatej.api;
+
+/**
+ * Command that returns a result of type R, sent with {@link MediateJ#send(Query)}
+ */
+public interface Query<R> extends Command {
+}
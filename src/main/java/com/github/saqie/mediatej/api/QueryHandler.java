@@ -0,0 +1,7 @@
+package com.github.saqie.mediatej.api;
+
+public interface QueryHandler<Q extends Query<R>, R> {
+
+    R handle(Q query);
+
+}
@@ -1,25 +1,310 @@
 package com.github.saqie.mediatej.core;
 
 import com.github.saqie.mediatej.api.*;
+import com.github.saqie.mediatej.core.configuration.HandlerResolutionMode;
+import com.github.saqie.mediatej.core.metrics.CacheKind;
+import com.github.saqie.mediatej.core.metrics.CacheSnapshot;
+import com.github.saqie.mediatej.core.metrics.CommandMetricsSnapshot;
+import com.github.saqie.mediatej.core.metrics.MetricsSnapshot;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import static com.github.saqie.mediatej.core.Check.*;
 
 final class BundleResolver {
 
-    private final Map<String, CommandBundle<? extends Command, ? extends ErrorBuilder>> commandBundleMap = new HashMap<>();
+    // Number of latest swaps whose changed types are kept, older routes are looked up again
+    private static final int TRACKED_CHANGES = 16;
+
+    private final Map<Class<?>, CommandRoute<?, ?>> commandRouteMap;
+    private final boolean resolveHierarchy;
+    private final Map<Class<?>, QueryRoute<?, ?, ?>> queryRouteMap;
+
+    // Dispatch table keyed by the command class itself, each class caches its own route after the first lookup,
+    // including the result of the hierarchy walk
+    private final ClassValue<CommandRoute<?, ?>> dispatchTable = new ClassValue<>() {
+        @Override
+        protected CommandRoute<?, ?> computeValue(Class<?> type) {
+            return resolveHierarchy ? route(commandSlots, commandRouteMap, type) : commandRouteMap.get(type);
+        }
+    };
+
+    private final ClassValue<QueryRoute<?, ?, ?>> queryDispatchTable = new ClassValue<>() {
+        @Override
+        protected QueryRoute<?, ?, ?> computeValue(Class<?> type) {
+            return resolveHierarchy ? route(querySlots, queryRouteMap, type) : queryRouteMap.get(type);
+        }
+    };
+
+    // Routes resolved in HIERARCHY mode so far, shared by every generation of the resolver. A route resolved by an
+    // earlier generation is stamped again when none of the types changed since then is the class or one of its
+    // supertypes, so after a swap the dispatch tables above only walk the hierarchy again for the classes it affects.
+    // The dispatch tables themselves stay per generation, an immutable value keeps the hot path to one lookup,
+    // and in EXACT mode a lookup is a single map read, cheaper than checking a stamp.
+    private final ClassValue<DispatchSlot> commandSlots;
+    private final ClassValue<DispatchSlot> querySlots;
+    private final long generation;
+    // Types changed by the latest swaps, the one which created this generation first
+    private final Class<?>[] changes;
+
+    // Kept to compile routes registered at runtime, see MediateRegistry
+    private final List<PipelineBehavior> behaviors;
+    private final Map<Class<?>, ResultCache<?, ?>> resultCacheMap;
+    private final Map<Class<?>, ResultCache<Object, Boolean>> deduplicationMap;
+    private final Map<Class<?>, ResultCache<Object, CommandBundle<?, ?>>> validationCacheMap;
+    private final Map<Class<?>, Long> deadlineMap;
+    private final boolean collectMetrics;
+    private final int maxConcurrentSendsPerCommand;
 
     public BundleResolver(MediateConfigurer configurer) {
-        this.commandBundleMap.putAll(configurer.commandBundleMap());
+        this.resolveHierarchy = HandlerResolutionMode.HIERARCHY == configurer.handlerResolutionMode();
+        this.behaviors = List.copyOf(configurer.behaviors());
+        this.resultCacheMap = Map.copyOf(configurer.resultCacheMap());
+        this.deduplicationMap = Map.copyOf(configurer.deduplicationMap());
+        this.validationCacheMap = Map.copyOf(configurer.validationCacheMap());
+        this.deadlineMap = Map.copyOf(configurer.deadlineMap());
+        this.collectMetrics = configurer.collectMetrics();
+        this.maxConcurrentSendsPerCommand = configurer.maxConcurrentSendsPerCommand();
+        Map<Class<?>, CommandRoute<?, ?>> commandRoutes = new HashMap<>();
+        configurer.commandBundleMap().forEach((commandType, commandBundle) -> commandRoutes.put(commandType, compile(commandType, commandBundle, metrics(commandType, null))));
+        Map<Class<?>, QueryRoute<?, ?, ?>> queryRoutes = new HashMap<>();
+        configurer.queryRouteMap().forEach((queryType, queryRoute) -> queryRoutes.put(queryType, compile(queryType, queryRoute, metrics(queryType, null))));
+        this.commandRouteMap = Map.copyOf(commandRoutes);
+        this.queryRouteMap = Map.copyOf(queryRoutes);
+        this.commandSlots = new DispatchSlots();
+        this.querySlots = new DispatchSlots();
+        this.generation = 0;
+        this.changes = new Class<?>[0];
+    }
+
+    private BundleResolver(BundleResolver resolver, Class<?> changedType, Map<Class<?>, CommandRoute<?, ?>> commandRouteMap, Map<Class<?>, QueryRoute<?, ?, ?>> queryRouteMap) {
+        this.resolveHierarchy = resolver.resolveHierarchy;
+        this.behaviors = resolver.behaviors;
+        this.resultCacheMap = resolver.resultCacheMap;
+        this.deduplicationMap = resolver.deduplicationMap;
+        this.validationCacheMap = resolver.validationCacheMap;
+        this.deadlineMap = resolver.deadlineMap;
+        this.collectMetrics = resolver.collectMetrics;
+        this.maxConcurrentSendsPerCommand = resolver.maxConcurrentSendsPerCommand;
+        this.commandRouteMap = Map.copyOf(commandRouteMap);
+        this.queryRouteMap = Map.copyOf(queryRouteMap);
+        this.commandSlots = resolver.commandSlots;
+        this.querySlots = resolver.querySlots;
+        this.generation = resolver.generation + 1;
+        this.changes = new Class<?>[Math.min(resolver.changes.length + 1, TRACKED_CHANGES)];
+        this.changes[0] = changedType;
+        System.arraycopy(resolver.changes, 0, this.changes, 1, this.changes.length - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CommandRoute<?, ?> compile(Class<?> commandType, CommandBundle<? extends Command, ? extends ErrorBuilder> commandBundle, CommandMetrics metrics) {
+        CommandRoute<?, ?> route = CommandRoute.compile((Class<? extends Command>) commandType, commandBundle, behaviors, metrics);
+        if (deduplicationMap.containsKey(commandType)) {
+            route = route.withDeduplication(deduplicationMap.get(commandType));
+        }
+        if (validationCacheMap.containsKey(commandType)) {
+            route = route.withValidationCache(validationCacheMap.get(commandType));
+        }
+        if (deadlineMap.containsKey(commandType)) {
+            route = route.withDeadline(deadlineMap.get(commandType));
+        }
+        if (maxConcurrentSendsPerCommand > 0) {
+            route = route.withConcurrencyLimiter(new ConcurrencyLimiter(maxConcurrentSendsPerCommand));
+        }
+        return route;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private QueryRoute<?, ?, ?> compile(Class<?> queryType, QueryRoute<?, ?, ?> queryRoute, CommandMetrics metrics) {
+        QueryRoute route = queryRoute;
+        if (resultCacheMap.containsKey(queryType)) {
+            route = route.withResultCache(resultCacheMap.get(queryType));
+        }
+        if (metrics != null) {
+            route = route.withMetrics(metrics);
+        }
+        return route;
+    }
+
+    // Metrics of a replaced handler are carried over, so counters of the type keep growing across replacements
+    private CommandMetrics metrics(Class<?> type, CommandMetrics replaced) {
+        if (!collectMetrics) {
+            return null;
+        }
+        return replaced != null ? replaced : new CommandMetrics(type);
+    }
+
+    /**
+     * Returns new resolver with the command bundle registered for the command type, replacing the current one
+     */
+    BundleResolver withCommandBundle(Class<?> commandType, CommandBundle<? extends Command, ? extends ErrorBuilder> commandBundle) {
+        CommandRoute<?, ?> replaced = commandRouteMap.get(commandType);
+        CommandRoute<?, ?> route = compile(commandType, commandBundle, metrics(commandType, replaced != null ? replaced.metrics() : null));
+        if (replaced != null && replaced.concurrencyLimiter() != null) {
+            // Commands still running on the replaced handler keep counting against the limit
+            route = route.withConcurrencyLimiter(replaced.concurrencyLimiter());
+        }
+        Map<Class<?>, CommandRoute<?, ?>> commandRoutes = new HashMap<>(commandRouteMap);
+        commandRoutes.put(commandType, route);
+        return new BundleResolver(this, commandType, commandRoutes, queryRouteMap);
+    }
+
+    /**
+     * Returns new resolver with the query route registered for the query type, replacing the current one
+     */
+    BundleResolver withQueryRoute(Class<?> queryType, QueryRoute<?, ?, ?> queryRoute) {
+        QueryRoute<?, ?, ?> replaced = queryRouteMap.get(queryType);
+        Map<Class<?>, QueryRoute<?, ?, ?>> queryRoutes = new HashMap<>(queryRouteMap);
+        queryRoutes.put(queryType, compile(queryType, queryRoute, metrics(queryType, replaced != null ? replaced.metrics() : null)));
+        return new BundleResolver(this, queryType, commandRouteMap, queryRoutes);
+    }
+
+    /**
+     * Returns new resolver without the handler of the given command or query type
+     */
+    BundleResolver without(Class<?> type) {
+        Map<Class<?>, CommandRoute<?, ?>> commandRoutes = new HashMap<>(commandRouteMap);
+        Map<Class<?>, QueryRoute<?, ?, ?>> queryRoutes = new HashMap<>(queryRouteMap);
+        commandRoutes.remove(type);
+        queryRoutes.remove(type);
+        return new BundleResolver(this, type, commandRoutes, queryRoutes);
+    }
+
+    /**
+     * Drops validations of the command type, called once a new validator is published
+     * Entries of the replaced validator are never trusted by the new route anyway, this only frees their space
+     */
+    void clearValidationCache(Class<?> commandType) {
+        if (validationCacheMap.containsKey(commandType)) {
+            validationCacheMap.get(commandType).clear();
+        }
+    }
+
+    boolean contains(Class<?> type) {
+        return commandRouteMap.containsKey(type) || queryRouteMap.containsKey(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V route(ClassValue<DispatchSlot> slots, Map<Class<?>, V> routeMap, Class<?> type) {
+        DispatchSlot slot = slots.get(type);
+        StampedRoute stamped = slot.stamped;
+        if (stamped != null && stamped.generation == generation) {
+            return (V) stamped.route;
+        }
+        if (stamped != null && unchangedSince(stamped.generation, type)) {
+            slot.stamped = new StampedRoute(generation, stamped.route);
+            return (V) stamped.route;
+        }
+        V route = lookup(routeMap, type);
+        // A sender still holding an older resolver never overwrites a newer stamp
+        if (stamped == null || stamped.generation < generation) {
+            slot.stamped = new StampedRoute(generation, route);
+        }
+        return route;
+    }
+
+    private boolean unchangedSince(long stampedGeneration, Class<?> type) {
+        long swaps = generation - stampedGeneration;
+        if (swaps <= 0 || swaps > changes.length) {
+            return false;
+        }
+        for (int i = 0; i < swaps; i++) {
+            if (changes[i].isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <V> V lookup(Map<Class<?>, V> routeMap, Class<?> type) {
+        V route = routeMap.get(type);
+        if (route != null || !resolveHierarchy) {
+            return route;
+        }
+        for (Class<?> superclass = type.getSuperclass(); superclass != null; superclass = superclass.getSuperclass()) {
+            route = routeMap.get(superclass);
+            if (route != null) {
+                return route;
+            }
+        }
+        // Interfaces breadth first, nearest interfaces of the class win over interfaces of its superclasses
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            interfaces.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        while (!interfaces.isEmpty()) {
+            Class<?> candidate = interfaces.poll();
+            if (visited.add(candidate)) {
+                route = routeMap.get(candidate);
+                if (route != null) {
+                    return route;
+                }
+                interfaces.addAll(Arrays.asList(candidate.getInterfaces()));
+            }
+        }
+        return null;
     }
 
     @SuppressWarnings("unchecked")
-    <T extends Command, R extends ErrorBuilder> CommandBundle<T, R> resolve(T command) {
+    <T extends Command, R extends ErrorBuilder> CommandRoute<T, R> resolve(T command) {
         requireNonNullArgument(command, "Command cannot be null");
-        CommandBundle<T, R> commandBundle = (CommandBundle<T, R>) commandBundleMap.get(command.getClass().getCanonicalName());
-        requireCommandHandler(command, commandBundle);
-        return commandBundle;
+        CommandRoute<T, R> commandRoute = (CommandRoute<T, R>) dispatchTable.get(command.getClass());
+        requireCommandHandler(command, commandRoute);
+        return commandRoute;
+    }
+
+    @SuppressWarnings("unchecked")
+    <Q extends Query<R>, R, B extends ErrorBuilder> QueryRoute<Q, R, B> resolve(Q query) {
+        requireNonNullArgument(query, "Query cannot be null");
+        QueryRoute<Q, R, B> queryRoute = (QueryRoute<Q, R, B>) queryDispatchTable.get(query.getClass());
+        requireQueryHandler(query, queryRoute);
+        return queryRoute;
+    }
+
+    MetricsSnapshot metricsSnapshot() {
+        List<CommandMetricsSnapshot> snapshots = new ArrayList<>();
+        for (CommandRoute<?, ?> commandRoute : commandRouteMap.values()) {
+            if (commandRoute.metrics() != null) {
+                snapshots.add(commandRoute.metrics().snapshot());
+            }
+        }
+        for (QueryRoute<?, ?, ?> queryRoute : queryRouteMap.values()) {
+            if (queryRoute.metrics() != null) {
+                snapshots.add(queryRoute.metrics().snapshot());
+            }
+        }
+        List<CacheSnapshot> cacheSnapshots = new ArrayList<>();
+        resultCacheMap.forEach((type, cache) -> cacheSnapshots.add(snapshot(type, CacheKind.QUERY_RESULTS, cache)));
+        deduplicationMap.forEach((type, cache) -> cacheSnapshots.add(snapshot(type, CacheKind.DEDUPLICATION, cache)));
+        validationCacheMap.forEach((type, cache) -> cacheSnapshots.add(snapshot(type, CacheKind.VALIDATION, cache)));
+        return new MetricsSnapshot(snapshots, null, cacheSnapshots);
+    }
+
+    private static CacheSnapshot snapshot(Class<?> type, CacheKind kind, ResultCache<?, ?> cache) {
+        return new CacheSnapshot(type, kind, cache.size(), cache.hits(), cache.misses());
+    }
+
+    private static final class DispatchSlots extends ClassValue<DispatchSlot> {
+        @Override
+        protected DispatchSlot computeValue(Class<?> type) {
+            return new DispatchSlot();
+        }
+    }
+
+    private static final class DispatchSlot {
+        private volatile StampedRoute stamped;
+    }
+
+    // Route of a class together with the generation of the resolver that last confirmed it
+    private static final class StampedRoute {
+
+        private final long generation;
+        private final Object route;
+
+        private StampedRoute(long generation, Object route) {
+            this.generation = generation;
+            this.route = route;
+        }
     }
 }
@@ -6,7 +6,6 @@ import com.github.saqie.mediatej.core.exception.MediateJMissingHandlerException;
 import com.github.saqie.mediatej.core.exception.MediateJMissingValidatorException;
 import com.github.saqie.mediatej.core.exception.MediateJWrongParameterException;
 
-import java.lang.reflect.Type;
 import java.util.Collection;
 
 
@@ -24,12 +23,30 @@ final class Check {
         }
     }
 
+    public static void requirePositive(long value, String message) {
+        if (value < 1) {
+            throw new MediateJWrongParameterException(message);
+        }
+    }
+
+    public static void requireAtMost(long value, long maximum, String message) {
+        if (value > maximum) {
+            throw new MediateJWrongParameterException(message);
+        }
+    }
+
     public static void requireCommandHandler(Command c, Object o) {
         if (o == null) {
             throw new MediateJMissingHandlerException("Command handler for " + c.getClass().getSimpleName() + " not found");
         }
     }
 
+    public static void requireQueryHandler(Query<?> q, Object o) {
+        if (o == null) {
+            throw new MediateJMissingHandlerException("Query handler for " + q.getClass().getSimpleName() + " not found");
+        }
+    }
+
     public static <R extends ErrorBuilder, T extends Command> void checkValidatorParameter(CommandValidator<T, R> commandValidator, ErrorBuilder errorBuilder, String validatorName) {
         if (errorBuilder == null) {
             throw new MediateJMissingValidatorException("Error builder not provided ! use .registerErrorBuilder() to register a new error builder");
@@ -52,9 +69,25 @@ final class Check {
     }
 
 
-    public static void requireNotNullGenericParameterTypes(Type[] types, String targetClassName) {
-        if (types == null || types.length < 1 || types[0].getTypeName().isEmpty()) {
-            throw new MediateJMissingArgumentException("Class " + targetClassName + " doesn't have require generic command parameter");
+    public static void requireHasErrors(ErrorBuilder errorBuilder) {
+        if (!overrides(errorBuilder, "hasErrors")) {
+            throw new MediateJWrongParameterException("Error builder " + errorBuilder.getClass().getSimpleName()
+                    + " has to override hasErrors() in FAIL_FAST validation mode");
+        }
+    }
+
+    public static void requireMerge(ErrorBuilder errorBuilder) {
+        if (!(errorBuilder instanceof MergeableErrorBuilder)) {
+            throw new MediateJWrongParameterException("Error builder " + errorBuilder.getClass().getSimpleName()
+                    + " has to implement MergeableErrorBuilder to run validators in parallel");
+        }
+    }
+
+    private static boolean overrides(ErrorBuilder errorBuilder, String methodName, Class<?>... parameterTypes) {
+        try {
+            return errorBuilder.getClass().getMethod(methodName, parameterTypes).getDeclaringClass() != ErrorBuilder.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
         }
     }
 
@@ -65,13 +98,13 @@ final class Check {
     }
 
     private static void requireCorrectErrorBuilderParameter(ClassKeyData validatorClassKeyData, ErrorBuilder errorBuilder) {
-        if (!validatorClassKeyData.validatorKey().equals(errorBuilder.getClass().getCanonicalName())) {
+        if (validatorClassKeyData.errorBuilderType() != errorBuilder.getClass()) {
             throw new MediateJWrongParameterException("Wrong error builder parameter type for validator " + validatorClassKeyData.validatorName());
         }
     }
 
     private static void requireCorrectFirstValidatorParameter(ClassKeyData handlerClassKeyData, ClassKeyData validatorClassKeyData) {
-        if (!handlerClassKeyData.classKey().equals(validatorClassKeyData.classKey())) {
+        if (handlerClassKeyData.commandType() != validatorClassKeyData.commandType()) {
             throw new MediateJWrongParameterException("Wrong first parameter type for validator " + validatorClassKeyData.validatorName());
         }
     }
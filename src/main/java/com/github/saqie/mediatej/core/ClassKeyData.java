@@ -2,63 +2,109 @@ package com.github.saqie.mediatej.core;
 
 import com.github.saqie.mediatej.api.CommandHandler;
 import com.github.saqie.mediatej.api.CommandValidator;
+import com.github.saqie.mediatej.api.EventHandler;
+import com.github.saqie.mediatej.api.QueryHandler;
 import com.github.saqie.mediatej.core.exception.MediateJMissingArgumentException;
 
-import java.lang.reflect.Type;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+final class ClassKeyData {
 
-import static com.github.saqie.mediatej.core.Check.requireNotNullGenericParameterTypes;
+    // Generic parameters never change for a loaded class, so each handler and validator class is resolved once,
+    // from a build-time type index when one covers the class and by reflection otherwise
+    private static final ClassValue<ClassKeyData> HANDLER_KEY_DATA = new ClassValue<>() {
+        @Override
+        protected ClassKeyData computeValue(Class<?> type) {
+            Class<?> indexedCommandType = TypeIndexes.commandType(type);
+            if (indexedCommandType != null) {
+                return new ClassKeyData(indexedCommandType, null, type.getSimpleName(), "");
+            }
+            Class<?>[] typeArguments = requireTypeArguments(type, CommandHandler.class);
+            return new ClassKeyData(typeArguments[0], null, type.getSimpleName(), "");
+        }
+    };
 
-@SuppressWarnings("rawtypes")
-class ClassKeyData {
+    private static final ClassValue<ClassKeyData> QUERY_HANDLER_KEY_DATA = new ClassValue<>() {
+        @Override
+        protected ClassKeyData computeValue(Class<?> type) {
+            Class<?> indexedQueryType = TypeIndexes.queryType(type);
+            if (indexedQueryType != null) {
+                return new ClassKeyData(indexedQueryType, null, type.getSimpleName(), "");
+            }
+            Class<?>[] typeArguments = requireTypeArguments(type, QueryHandler.class);
+            return new ClassKeyData(typeArguments[0], null, type.getSimpleName(), "");
+        }
+    };
 
-    private static final Pattern PATTERN = Pattern.compile("<(.*?)>$");
+    private static final ClassValue<ClassKeyData> EVENT_HANDLER_KEY_DATA = new ClassValue<>() {
+        @Override
+        protected ClassKeyData computeValue(Class<?> type) {
+            Class<?> indexedEventType = TypeIndexes.eventType(type);
+            if (indexedEventType != null) {
+                return new ClassKeyData(indexedEventType, null, type.getSimpleName(), "");
+            }
+            Class<?>[] typeArguments = requireTypeArguments(type, EventHandler.class);
+            return new ClassKeyData(typeArguments[0], null, type.getSimpleName(), "");
+        }
+    };
+
+    private static final ClassValue<ClassKeyData> VALIDATOR_KEY_DATA = new ClassValue<>() {
+        @Override
+        protected ClassKeyData computeValue(Class<?> type) {
+            Class<?> indexedCommandType = TypeIndexes.validatedType(type);
+            Class<?> indexedErrorBuilderType = TypeIndexes.errorBuilderType(type);
+            if (indexedCommandType != null && indexedErrorBuilderType != null) {
+                return new ClassKeyData(indexedCommandType, indexedErrorBuilderType, "", type.getSimpleName());
+            }
+            Class<?>[] typeArguments = requireTypeArguments(type, CommandValidator.class);
+            return new ClassKeyData(typeArguments[0], typeArguments[1], "", type.getSimpleName());
+        }
+    };
 
-    private String classKey;
-    private String validatorKey;
+    private final Class<?> commandType;
+    private final Class<?> errorBuilderType;
     private final String className;
     private final String validatorName;
 
+    private ClassKeyData(Class<?> commandType, Class<?> errorBuilderType, String className, String validatorName) {
+        this.commandType = commandType;
+        this.errorBuilderType = errorBuilderType;
+        this.className = className;
+        this.validatorName = validatorName;
+    }
 
-    public ClassKeyData(CommandHandler commandHandler) {
-        extractClassKeyData(commandHandler.getClass().getGenericInterfaces(), commandHandler.getClass().getSimpleName());
-        this.className = commandHandler.getClass().getSimpleName();
-        this.validatorName = "";
+    static ClassKeyData of(CommandHandler<?> commandHandler) {
+        return HANDLER_KEY_DATA.get(commandHandler.getClass());
     }
 
-    public ClassKeyData(CommandValidator commandValidator) {
-        extractClassKeyData(commandValidator.getClass().getGenericInterfaces(), commandValidator.getClass().getSimpleName());
-        this.validatorName = commandValidator.getClass().getSimpleName();
-        this.className = "";
+    static ClassKeyData ofQueryHandler(QueryHandler<?, ?> queryHandler) {
+        return QUERY_HANDLER_KEY_DATA.get(queryHandler.getClass());
     }
 
-    private void extractClassKeyData(Type[] genericInterfaces, String classSimpleName) {
-        requireNotNullGenericParameterTypes(genericInterfaces, classSimpleName);
-        String commandTypeName = genericInterfaces[0].getTypeName();
-        Matcher matcher = PATTERN.matcher(commandTypeName);
-        if (matcher.find()) {
-            String group = matcher.group(1);
-            String[] split = group.split(",");
-            if (split.length > 1) {
-                this.classKey = split[0].trim().replace('$', '.');
-                this.validatorKey = split[1].trim().replace('$', '.');
-            } else {
-                this.classKey = group.replace('$', '.');
-                this.validatorKey = "";
-            }
-            return;
-        }
-        throw new MediateJMissingArgumentException("Class " + classSimpleName + " doesn't have required generic interface parameters");
+    static ClassKeyData ofEventHandler(EventHandler<?> eventHandler) {
+        return EVENT_HANDLER_KEY_DATA.get(eventHandler.getClass());
     }
 
+    static ClassKeyData of(CommandValidator<?, ?> commandValidator) {
+        return VALIDATOR_KEY_DATA.get(commandValidator.getClass());
+    }
+
+    private static Class<?>[] requireTypeArguments(Class<?> type, Class<?> genericInterface) {
+        Class<?>[] typeArguments = GenericTypeResolver.resolveTypeArguments(type, genericInterface);
+        if (typeArguments == null || (genericInterface != CommandValidator.class && typeArguments[0] == null)) {
+            throw new MediateJMissingArgumentException("Class " + type.getSimpleName() + " doesn't have required generic interface parameters");
+        }
+        return typeArguments;
+    }
 
     public String classKey() {
-        return classKey;
+        return commandType == null ? "" : commandType.getCanonicalName();
+    }
+
+    public Class<?> commandType() {
+        return commandType;
     }
 
-    public String validatorKey() {
-        return validatorKey;
+    public Class<?> errorBuilderType() {
+        return errorBuilderType;
     }
 
     public String className() {
@@ -0,0 +1,230 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.CommandHandler;
+import com.github.saqie.mediatej.api.CommandValidator;
+import com.github.saqie.mediatej.api.EventHandler;
+import com.github.saqie.mediatej.api.QueryHandler;
+import com.github.saqie.mediatej.core.exception.MediateJScanException;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Finds handler and validator classes in packages of class path directories and jars
+ */
+final class ClasspathScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final ClassLoader classLoader;
+    private final List<String> packages;
+
+    ClasspathScanner(ClassLoader classLoader, Collection<String> packages) {
+        this.classLoader = classLoader;
+        this.packages = List.copyOf(new TreeSet<>(packages));
+    }
+
+    List<String> packages() {
+        return packages;
+    }
+
+    /**
+     * Hash of every class path location containing the scanned packages, it changes whenever a class file in
+     * a scanned directory or a jar with a scanned package is added, removed or modified.
+     * A jar costs one file status whatever its size. A directory is walked, which costs one file status per entry
+     * below the scanned package, the walk hands over the attributes so no file is read twice. No class is loaded.
+     */
+    long fingerprint() {
+        long fingerprint = 17;
+        for (String packageName : packages) {
+            fingerprint = 31 * fingerprint + packageName.hashCode();
+            for (URL location : locations(packageName)) {
+                if ("file".equals(location.getProtocol())) {
+                    fingerprint = 31 * fingerprint + directoryFingerprint(toPath(location));
+                } else if ("jar".equals(location.getProtocol())) {
+                    fingerprint = 31 * fingerprint + jarFingerprint(location);
+                }
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return concrete command handlers, query handlers, event handlers and validators in the scanned packages, sorted by binary name
+     */
+    List<Class<?>> scan() {
+        Set<String> classNames = new TreeSet<>();
+        for (String packageName : packages) {
+            for (URL location : locations(packageName)) {
+                if ("file".equals(location.getProtocol())) {
+                    collectFromDirectory(toPath(location), packageName, classNames);
+                } else if ("jar".equals(location.getProtocol())) {
+                    collectFromJar(location, packageName, classNames);
+                }
+            }
+        }
+        List<Class<?>> candidates = new ArrayList<>();
+        for (String className : classNames) {
+            Class<?> type = loadClass(className);
+            if (isCandidate(type)) {
+                candidates.add(type);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Loads the class names read from a scan index, each once, and checks them as the scan itself would,
+     * the index file may have been written by someone else
+     *
+     * @return loaded classes, null if any class is outside the scanned packages, missing or not a handler or validator the scan would find
+     */
+    List<Class<?>> loadIndexed(List<String> classNames) {
+        List<Class<?>> classes = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            if (!inScannedPackage(className)) {
+                return null;
+            }
+            try {
+                Class<?> type = Class.forName(className, false, classLoader);
+                if (!isCandidate(type)) {
+                    return null;
+                }
+                classes.add(type);
+            } catch (ClassNotFoundException | LinkageError e) {
+                return null;
+            }
+        }
+        return classes;
+    }
+
+    private boolean inScannedPackage(String className) {
+        for (String packageName : packages) {
+            if (className.startsWith(packageName + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new MediateJScanException("Cannot load scanned class " + className, e);
+        }
+    }
+
+    private static boolean isCandidate(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isAnonymousClass() || type.isLocalClass()) {
+            return false;
+        }
+        if (type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) {
+            return false;
+        }
+        return CommandHandler.class.isAssignableFrom(type) || QueryHandler.class.isAssignableFrom(type)
+                || CommandValidator.class.isAssignableFrom(type) || EventHandler.class.isAssignableFrom(type);
+    }
+
+    private List<URL> locations(String packageName) {
+        try {
+            return Collections.list(classLoader.getResources(packageName.replace('.', '/')));
+        } catch (IOException e) {
+            throw new MediateJScanException("Cannot scan package " + packageName, e);
+        }
+    }
+
+    private static long directoryFingerprint(Path directory) {
+        long[] fingerprint = new long[1];
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (file.toString().endsWith(CLASS_SUFFIX)) {
+                        fingerprint[0] += file.toString().hashCode() * 31L * 31L
+                                + attributes.lastModifiedTime().toMillis() * 31L + attributes.size();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    fingerprint[0] += file.toString().hashCode();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new MediateJScanException("Cannot scan directory " + directory, e);
+        }
+        return fingerprint[0];
+    }
+
+    private static long jarFingerprint(URL location) {
+        File jar = jarFile(location);
+        return jar.getPath().hashCode() * 31L * 31L + jar.lastModified() * 31L + jar.length();
+    }
+
+    private static void collectFromDirectory(Path directory, String packageName, Set<String> classNames) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(file -> file.toString().endsWith(CLASS_SUFFIX))
+                    .forEach(file -> {
+                        String relativeName = directory.relativize(file).toString().replace(File.separatorChar, '.');
+                        addClassName(packageName + "." + relativeName, classNames);
+                    });
+        } catch (IOException e) {
+            throw new MediateJScanException("Cannot scan directory " + directory, e);
+        }
+    }
+
+    private static void collectFromJar(URL location, String packageName, Set<String> classNames) {
+        String prefix = packageName.replace('.', '/') + "/";
+        try (JarFile jar = new JarFile(jarFile(location))) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.startsWith(prefix) && entryName.endsWith(CLASS_SUFFIX)) {
+                    addClassName(entryName.replace('/', '.'), classNames);
+                }
+            }
+        } catch (IOException e) {
+            throw new MediateJScanException("Cannot scan jar " + location, e);
+        }
+    }
+
+    private static void addClassName(String classFileName, Set<String> classNames) {
+        String className = classFileName.substring(0, classFileName.length() - CLASS_SUFFIX.length());
+        if (!className.endsWith("module-info") && !className.endsWith("package-info")) {
+            classNames.add(className);
+        }
+    }
+
+    private static File jarFile(URL location) {
+        try {
+            JarURLConnection connection = (JarURLConnection) location.openConnection();
+            return new File(connection.getJarFileURL().toURI());
+        } catch (IOException | URISyntaxException e) {
+            throw new MediateJScanException("Cannot scan jar " + location, e);
+        }
+    }
+
+    private static Path toPath(URL location) {
+        try {
+            return Path.of(location.toURI());
+        } catch (URISyntaxException e) {
+            throw new MediateJScanException("Cannot scan directory " + location, e);
+        }
+    }
+}
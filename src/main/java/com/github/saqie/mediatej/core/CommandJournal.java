@@ -0,0 +1,278 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandSerializer;
+import com.github.saqie.mediatej.core.exception.MediateJJournalException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of commands split into fixed size segment files, written through memory mapping
+ * Every record is an int payload length, an int CRC32 of the payload and the payload. A zero length marks the end of written
+ * data, a record with a wrong checksum (torn write) ends the journal as well and is overwritten by the next append.
+ * Appended records are in the page cache at once, so they survive a crash of the process. Forcing them to disk is batched
+ * by a flusher thread every flush interval, with a zero interval every append is forced before it returns.
+ */
+final class CommandJournal implements AutoCloseable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final CommandSerializer serializer;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final Thread flusher;
+
+    // Guarded by this
+    private long segmentIndex;
+    private MappedByteBuffer segment;
+
+    private volatile boolean dirty;
+    private volatile boolean closed;
+
+    CommandJournal(Path directory, CommandSerializer serializer, int segmentSize, long flushIntervalNanos) {
+        this.directory = directory;
+        this.serializer = serializer;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = flushIntervalNanos;
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments();
+            if (segments.isEmpty()) {
+                this.segment = map(segmentPath(0), segmentSize);
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                this.segmentIndex = segmentIndex(last);
+                this.segment = map(last, Math.max(Files.size(last), HEADER_SIZE));
+                recover(segment);
+            }
+        } catch (IOException e) {
+            throw new MediateJJournalException("Cannot open journal in " + directory, e);
+        }
+        if (flushIntervalNanos > 0) {
+            this.flusher = new Thread(this::flushPeriodically, "mediatej-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    void append(Command command) {
+        byte[] payload = serializer.serialize(command);
+        if (payload.length == 0) {
+            // A zero length marks the end of written data, the record and everything after it would be lost on replay
+            throw new MediateJJournalException("Command " + command.getClass().getCanonicalName() + " is serialized to an empty payload");
+        }
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new MediateJJournalException("Command " + command.getClass().getCanonicalName() + " is larger than journal segment size");
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        synchronized (this) {
+            if (closed) {
+                throw new MediateJJournalException("Journal is closed");
+            }
+            if (segment.remaining() < recordSize) {
+                roll();
+            }
+            int position = segment.position();
+            segment.putInt(position + 4, (int) checksum.getValue());
+            segment.position(position + HEADER_SIZE);
+            segment.put(payload);
+            // Length goes last, a reader never sees a record whose payload is still being written
+            segment.putInt(position, payload.length);
+            if (flushIntervalNanos == 0) {
+                segment.force();
+            } else {
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Passes every command appended before the call to the consumer, in append order
+     *
+     * @return number of replayed commands
+     */
+    long replay(Consumer<Command> consumer) {
+        long lastIndex;
+        ByteBuffer lastSegment;
+        synchronized (this) {
+            lastIndex = segmentIndex;
+            lastSegment = segment.duplicate().flip();
+        }
+        long replayed = 0;
+        try {
+            for (Path path : segments()) {
+                long index = segmentIndex(path);
+                if (index < lastIndex) {
+                    replayed += replay(readOnly(path), consumer);
+                } else if (index == lastIndex) {
+                    replayed += replay(lastSegment, consumer);
+                }
+            }
+        } catch (IOException e) {
+            throw new MediateJJournalException("Cannot read journal in " + directory, e);
+        }
+        return replayed;
+    }
+
+    /**
+     * Forces appended records to disk
+     */
+    void flush() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            current = segment;
+        }
+        // Outside of the lock, appends keep going while the pages are written
+        current.force();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            boolean interrupted = false;
+            while (flusher.isAlive()) {
+                try {
+                    flusher.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            segment.force();
+        }
+    }
+
+    private void flushPeriodically() {
+        while (!closed) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            flush();
+        }
+    }
+
+    private void roll() {
+        segment.force();
+        try {
+            segment = map(segmentPath(segmentIndex + 1), segmentSize);
+        } catch (IOException e) {
+            throw new MediateJJournalException("Cannot create journal segment in " + directory, e);
+        }
+        segmentIndex++;
+    }
+
+    private long replay(ByteBuffer buffer, Consumer<Command> consumer) {
+        int end = validEnd(buffer);
+        long replayed = 0;
+        for (int position = 0; position < end; replayed++) {
+            byte[] payload = new byte[buffer.getInt(position)];
+            buffer.duplicate().position(position + HEADER_SIZE).get(payload);
+            consumer.accept(serializer.deserialize(payload));
+            position += HEADER_SIZE + payload.length;
+        }
+        return replayed;
+    }
+
+    // Positions the segment after its last valid record and clears anything left behind it by a torn write
+    private static void recover(MappedByteBuffer buffer) {
+        int end = validEnd(buffer);
+        buffer.position(end);
+        if (end + HEADER_SIZE <= buffer.limit() && buffer.getInt(end) != 0) {
+            for (int i = end; i < buffer.limit(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private static int validEnd(ByteBuffer buffer) {
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.limit() - position - HEADER_SIZE) {
+                break;
+            }
+            if (checksum(buffer, position + HEADER_SIZE, length) != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.duplicate().position(offset).limit(offset + length));
+        return (int) checksum.getValue();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d", index) + SEGMENT_SUFFIX);
+    }
+
+    private static long segmentIndex(Path path) {
+        String fileName = path.getFileName().toString();
+        try {
+            return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new MediateJJournalException("Unexpected journal segment " + path);
+        }
+    }
+
+    // A file channel used by an interrupted thread closes itself with ClosedByInterruptException, so the interrupt
+    // of the appending or replaying thread is cleared while mapping and restored afterwards
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static ByteBuffer readOnly(Path path) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.metrics.CommandMetricsSnapshot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one command type, validation and handling are recorded separately
+ */
+final class CommandMetrics {
+
+    private final Class<?> commandType;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder handlerFailures = new LongAdder();
+    private final LatencyHistogram validationLatency = new LatencyHistogram();
+    private final LatencyHistogram handlingLatency = new LatencyHistogram();
+
+    CommandMetrics(Class<?> commandType) {
+        this.commandType = commandType;
+    }
+
+    void recordValidation(long nanos, boolean failed) {
+        validationLatency.record(nanos);
+        if (failed) {
+            sent.increment();
+            validationFailures.increment();
+        }
+    }
+
+    void recordHandling(long nanos, boolean failed) {
+        handlingLatency.record(nanos);
+        sent.increment();
+        if (failed) {
+            handlerFailures.increment();
+        }
+    }
+
+    CommandMetricsSnapshot snapshot() {
+        return new CommandMetricsSnapshot(commandType, sent.sum(), validationFailures.sum(), handlerFailures.sum(),
+                validationLatency.snapshot(), handlingLatency.snapshot());
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.*;
+
+import java.util.List;
+
+/**
+ * Command bundle with its handler already wrapped in the pipeline behaviors that apply to the command type
+ */
+final class CommandRoute<T extends Command, R extends ErrorBuilder> {
+
+    private final CommandBundle<T, R> commandBundle;
+    private final PipelineStep<T> pipeline;
+    private final CommandMetrics metrics;
+    private final ResultCache<Object, Boolean> deduplication;
+    private final ResultCache<Object, CommandBundle<?, ?>> validationCache;
+    private final long deadlineNanos;
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private CommandRoute(CommandBundle<T, R> commandBundle, PipelineStep<T> pipeline, CommandMetrics metrics, ResultCache<Object, Boolean> deduplication,
+                         ResultCache<Object, CommandBundle<?, ?>> validationCache, long deadlineNanos, ConcurrencyLimiter concurrencyLimiter) {
+        this.commandBundle = commandBundle;
+        this.pipeline = pipeline;
+        this.metrics = metrics;
+        this.deduplication = deduplication;
+        this.validationCache = validationCache;
+        this.deadlineNanos = deadlineNanos;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    static <T extends Command, R extends ErrorBuilder> CommandRoute<T, R> compile(Class<? extends Command> commandType, CommandBundle<T, R> commandBundle,
+                                                                                List<PipelineBehavior> behaviors, CommandMetrics metrics) {
+        PipelineStep<T> pipeline = commandBundle.commandHandler()::handle;
+        for (int i = behaviors.size() - 1; i >= 0; i--) {
+            PipelineBehavior behavior = behaviors.get(i);
+            if (behavior.supports(commandType)) {
+                PipelineStep<T> next = pipeline;
+                pipeline = command -> behavior.handle(command, next);
+            }
+        }
+        return new CommandRoute<>(commandBundle, pipeline, metrics, null, null, 0, null);
+    }
+
+    CommandRoute<T, R> withDeduplication(ResultCache<Object, Boolean> deduplication) {
+        return new CommandRoute<>(commandBundle, pipeline, metrics, deduplication, validationCache, deadlineNanos, concurrencyLimiter);
+    }
+
+    /**
+     * Returns route which remembers commands that passed validation, only routes with a validator use the cache
+     * Entries are stamped with the command bundle that validated them, so a route replaced at runtime never trusts
+     * validations of its predecessor, even those stored after the replacement by sends still running on the old route
+     */
+    CommandRoute<T, R> withValidationCache(ResultCache<Object, CommandBundle<?, ?>> validationCache) {
+        if (commandBundle.commandValidator().isEmpty()) {
+            return this;
+        }
+        return new CommandRoute<>(commandBundle, pipeline, metrics, deduplication, validationCache, deadlineNanos, concurrencyLimiter);
+    }
+
+    CommandRoute<T, R> withDeadline(long deadlineNanos) {
+        return new CommandRoute<>(commandBundle, pipeline, metrics, deduplication, validationCache, deadlineNanos, concurrencyLimiter);
+    }
+
+    CommandRoute<T, R> withConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        return new CommandRoute<>(commandBundle, pipeline, metrics, deduplication, validationCache, deadlineNanos, concurrencyLimiter);
+    }
+
+    CommandBundle<T, R> commandBundle() {
+        return commandBundle;
+    }
+
+    PipelineStep<T> pipeline() {
+        return pipeline;
+    }
+
+    CommandMetrics metrics() {
+        return metrics;
+    }
+
+    ResultCache<Object, Boolean> deduplication() {
+        return deduplication;
+    }
+
+    /**
+     * Returns true if the command is equal to one that passed validation of this route and is still cached
+     */
+    boolean isValidated(T command) {
+        if (validationCache == null) {
+            return false;
+        }
+        ResultCache.CachedValue<CommandBundle<?, ?>> validated = validationCache.get(command);
+        return validated != null && validated.value() == commandBundle;
+    }
+
+    void markValidated(T command) {
+        if (validationCache != null) {
+            validationCache.put(command, commandBundle);
+        }
+    }
+
+    ResultCache<Object, CommandBundle<?, ?>> validationCache() {
+        return validationCache;
+    }
+
+    /**
+     * Returns time budget of one send of the command type in nanoseconds, 0 if sends are not bounded
+     */
+    long deadlineNanos() {
+        return deadlineNanos;
+    }
+
+    ConcurrencyLimiter concurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+}
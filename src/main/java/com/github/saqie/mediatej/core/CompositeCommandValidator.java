@@ -0,0 +1,52 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Several validators of one command type registered together, run by {@link ValidatorResolver} in registration order
+ * or in parallel, each with its own error builder merged into the error builder of the send
+ */
+final class CompositeCommandValidator<T extends Command, R extends ErrorBuilder> implements CommandValidator<T, R> {
+
+    private final CommandValidator<T, R>[] validators;
+    private final boolean parallel;
+
+    @SuppressWarnings("unchecked")
+    CompositeCommandValidator(List<CommandValidator<T, R>> validators, boolean parallel) {
+        this.validators = validators.toArray((CommandValidator<T, R>[]) new CommandValidator<?, ?>[0]);
+        this.parallel = parallel;
+    }
+
+    @Override
+    public void validate(T command, R errorBuilder) {
+        for (CommandValidator<T, R> validator : validators) {
+            validator.validate(command, errorBuilder);
+        }
+    }
+
+    CommandValidator<T, R>[] validators() {
+        return validators;
+    }
+
+    boolean parallel() {
+        return parallel;
+    }
+
+    /**
+     * Returns true if any of the command bundles runs its validators in parallel
+     */
+    static boolean anyParallel(Collection<? extends CommandBundle<?, ?>> commandBundles) {
+        for (CommandBundle<?, ?> commandBundle : commandBundles) {
+            Optional<? extends CommandValidator<?, ?>> validator = commandBundle.commandValidator();
+            if (validator.isPresent() && validator.get() instanceof CompositeCommandValidator
+                    && ((CompositeCommandValidator<?, ?>) validator.get()).parallel()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
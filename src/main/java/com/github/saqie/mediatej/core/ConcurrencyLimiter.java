@@ -0,0 +1,120 @@
+package com.github.saqie.mediatej.core;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Limits the number of asynchronously sent commands of one route that are handled at the same time
+ * Commands over the limit wait here instead of on an executor thread, every finished command submits the next waiting one.
+ * One limiter belongs to one route, so in HIERARCHY mode subclasses handled by the same handler share the limit.
+ * A send started while the same thread is already starting one is queued and started by the outer call, so an executor
+ * running tasks on the calling thread hands permits over in a loop instead of nesting a frame per waiting command.
+ */
+final class ConcurrencyLimiter {
+
+    // Sends the current thread still has to start, set while an outer start loop runs on it
+    private static final ThreadLocal<Queue<Pending>> STARTING = new ThreadLocal<>();
+
+    private final int maxConcurrentSends;
+
+    // Guarded by this
+    private final Queue<Pending> waiting = new ArrayDeque<>();
+    private int running;
+
+    ConcurrencyLimiter(int maxConcurrentSends) {
+        this.maxConcurrentSends = maxConcurrentSends;
+    }
+
+    /**
+     * Runs the send on the executor once a permit is free
+     *
+     * @return future completed once the send returns, exceptionally if it throws or the executor rejects it
+     */
+    CompletableFuture<Void> submit(Runnable send, Executor executor) {
+        Pending pending = new Pending(send, executor);
+        synchronized (this) {
+            if (running == maxConcurrentSends) {
+                waiting.add(pending);
+                return pending.future;
+            }
+            running++;
+        }
+        start(pending);
+        return pending.future;
+    }
+
+    private static void start(Pending pending) {
+        if (pending == null) {
+            return;
+        }
+        Queue<Pending> starting = STARTING.get();
+        if (starting != null) {
+            starting.add(pending);
+            return;
+        }
+        starting = new ArrayDeque<>();
+        STARTING.set(starting);
+        try {
+            while (pending != null) {
+                try {
+                    pending.executor.execute(pending);
+                } catch (RejectedExecutionException e) {
+                    pending.future.completeExceptionally(e);
+                    Pending next = pending.handOver();
+                    if (next != null) {
+                        starting.add(next);
+                    }
+                }
+                pending = starting.poll();
+            }
+        } finally {
+            STARTING.remove();
+        }
+    }
+
+    // Hands the permit of a finished or rejected send over to the next waiting one, or gives it back
+    private synchronized Pending next() {
+        Pending pending = waiting.poll();
+        if (pending == null) {
+            running--;
+        }
+        return pending;
+    }
+
+    private final class Pending implements Runnable {
+
+        private final Runnable send;
+        private final Executor executor;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Pending(Runnable send, Executor executor) {
+            this.send = send;
+            this.executor = executor;
+        }
+
+        private Pending handOver() {
+            return next();
+        }
+
+        @Override
+        public void run() {
+            Throwable failure = null;
+            try {
+                send.run();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            // The permit is passed on before the future completes, so dependent stages never wait for it
+            start(handOver());
+            if (failure == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.exception.MediateJTimeoutException;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time budget of one send, the watchdog interrupts the sending thread once it runs out
+ * The state is moved by compare and set, so exactly one of the sending thread and the watchdog wins: either the send
+ * finishes in time and the interrupt never happens, or the watchdog interrupts and the sending thread clears the interrupt
+ * before it leaves the send, so threads of a pool never carry it into their next task.
+ */
+final class Deadline implements Runnable {
+
+    private static final int RUNNING = 0;
+    private static final int FINISHED = 1;
+    private static final int INTERRUPTING = 2;
+    private static final int EXPIRED = 3;
+
+    private final Thread thread;
+    private final long timeoutNanos;
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private final ScheduledFuture<?> watchdog;
+
+    private Deadline(long timeoutNanos) {
+        this.thread = Thread.currentThread();
+        this.timeoutNanos = timeoutNanos;
+        this.watchdog = Watchdog.SCHEDULER.schedule(this, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts deadline of the current thread
+     */
+    static Deadline start(long timeoutNanos) {
+        return new Deadline(timeoutNanos);
+    }
+
+    @Override
+    public void run() {
+        if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+            thread.interrupt();
+            state.set(EXPIRED);
+        }
+    }
+
+    /**
+     * Throws {@link MediateJTimeoutException} if the deadline already expired, called between validation and handling
+     */
+    void checkExpired(Object command) {
+        if (state.get() >= INTERRUPTING) {
+            throw timeout(command, null);
+        }
+    }
+
+    /**
+     * Stops the watchdog, returns true if the deadline expired first, its interrupt is cleared then
+     */
+    boolean finish() {
+        if (state.compareAndSet(RUNNING, FINISHED)) {
+            watchdog.cancel(false);
+            return false;
+        }
+        while (state.get() == INTERRUPTING) {
+            Thread.onSpinWait();
+        }
+        Thread.interrupted();
+        return true;
+    }
+
+    MediateJTimeoutException timeout(Object command, Throwable cause) {
+        return new MediateJTimeoutException(command.getClass().getCanonicalName() + " did not complete within "
+                + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", cause);
+    }
+
+    private static final class Watchdog {
+
+        private static final ScheduledThreadPoolExecutor SCHEDULER = scheduler();
+
+        private static ScheduledThreadPoolExecutor scheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "mediatej-deadline-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Deadlines are usually met, cancelled ones must not pile up in the queue until their delay passes
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.BackpressurePolicy;
+import com.github.saqie.mediatej.core.metrics.QueueSnapshot;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded multi producer, multi consumer ring buffer drained by a fixed pool of worker threads.
+ * Every slot carries a sequence number telling producers and workers whose turn it is, so enqueue and dequeue
+ * only contend on one CAS each. Threads that find the ring full or empty spin briefly and then sleep on a condition,
+ * the other side takes the lock only when a sleeper is registered.
+ * The ring is a power of two so a slot is found with a mask, occupancy is still bounded by the exact capacity.
+ * Closing needs no bookkeeping per task: a producer that raced with close finds the queue terminated right after
+ * publishing its task and runs whatever the stopped workers left behind.
+ * When partition lanes share the queue, commands waiting in lanes take space too: they are admitted with the
+ * backpressure policy before entering their lane and a counter of occupied space replaces the ring positions as the depth.
+ * Lane drains are queued outside the ring, so a worker rescheduling a lane never waits for space or gets rejected.
+ */
+final class DispatchQueue implements Executor, LaneAdmission {
+
+    private static final int SPINS_BEFORE_SLEEP = 64;
+    // Largest capacity whose ring size, the next power of two, still fits in an int
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private final AtomicReferenceArray<Runnable> tasks;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+    // Used instead of the ring positions only when partition lanes share the queue
+    private final boolean partitioned;
+    private final AtomicInteger occupied = new AtomicInteger();
+    private final Queue<Runnable> laneDrains = new ConcurrentLinkedQueue<>();
+
+    private final BackpressurePolicy backpressurePolicy;
+    private final Thread[] workers;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger sleepingWorkers = new AtomicInteger();
+    private final AtomicInteger sleepingProducers = new AtomicInteger();
+
+    private volatile boolean closed;
+    private volatile boolean draining;
+    // Set once every worker stopped, tasks published afterwards are run by their producer
+    private volatile boolean terminated;
+
+    DispatchQueue(int capacity, int workerCount, BackpressurePolicy backpressurePolicy) {
+        this(capacity, workerCount, backpressurePolicy, false);
+    }
+
+    DispatchQueue(int capacity, int workerCount, BackpressurePolicy backpressurePolicy, boolean partitioned) {
+        int ringSize = Integer.highestOneBit(capacity - 1) << 1;
+        ringSize = Math.max(ringSize, 2);
+        this.tasks = new AtomicReferenceArray<>(ringSize);
+        this.sequences = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = ringSize - 1;
+        this.capacity = capacity;
+        this.backpressurePolicy = backpressurePolicy;
+        this.partitioned = partitioned;
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::drain, "mediatej-queue-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues the task, when the queue is full the task waits for space, is rejected or runs on the calling thread
+     * depending on the backpressure policy
+     * Throws {@link RejectedExecutionException} if the task is dropped or the queue is closed
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("Dispatch queue is closed");
+        }
+        if (!offer(task)) {
+            switch (backpressurePolicy) {
+                case DROP:
+                    dropped.increment();
+                    throw new RejectedExecutionException("Dispatch queue is full");
+                case CALLER_RUNS:
+                    callerRuns.increment();
+                    task.run();
+                    return;
+                default:
+                    awaitSpace(() -> offer(task));
+            }
+        }
+        // Checked after publishing, close sets it before its last look at the ring, so the task is never stranded
+        if (terminated) {
+            runRemaining();
+        }
+    }
+
+    /**
+     * Admits a partitioned command to its lane, when the queue is full the command waits for space or is rejected
+     * depending on the backpressure policy. CALLER_RUNS waits like BLOCK, running the command on the calling thread
+     * would overtake the commands already waiting in its lane.
+     * Throws {@link RejectedExecutionException} if the command is dropped or the queue is closed
+     */
+    @Override
+    public void admit() {
+        if (closed) {
+            throw new RejectedExecutionException("Dispatch queue is closed");
+        }
+        if (reserve()) {
+            return;
+        }
+        if (backpressurePolicy == BackpressurePolicy.DROP) {
+            dropped.increment();
+            throw new RejectedExecutionException("Dispatch queue is full");
+        }
+        awaitSpace(this::reserve);
+    }
+
+    @Override
+    public void leave() {
+        release();
+    }
+
+    /**
+     * Queues the drain of a partition lane outside the ring, its commands already took space when they were admitted
+     * Throws {@link RejectedExecutionException} once the workers stopped, the lane then runs its commands itself
+     */
+    void executeLaneDrain(Runnable drain) {
+        laneDrains.add(drain);
+        if (sleepingWorkers.get() > 0) {
+            signal(notEmpty);
+        }
+        // Same race as in execute, a drain that is still queued after termination is handed back to its lane
+        if (terminated && laneDrains.remove(drain)) {
+            throw new RejectedExecutionException("Dispatch queue is closed");
+        }
+    }
+
+    private boolean offer(Runnable task) {
+        if (!partitioned) {
+            return enqueue(task);
+        }
+        if (!reserve()) {
+            return false;
+        }
+        if (enqueue(task)) {
+            return true;
+        }
+        release();
+        return false;
+    }
+
+    private boolean reserve() {
+        int current = occupied.get();
+        while (current < capacity) {
+            if (occupied.compareAndSet(current, current + 1)) {
+                return true;
+            }
+            current = occupied.get();
+        }
+        return false;
+    }
+
+    private void release() {
+        occupied.decrementAndGet();
+        if (sleepingProducers.get() > 0) {
+            signal(notFull);
+        }
+    }
+
+    private boolean enqueue(Runnable task) {
+        long position = enqueuePosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                // Dequeue position only grows, so occupancy is below capacity if the CAS below succeeds
+                if (position - dequeuePosition.get() >= capacity) {
+                    return false;
+                }
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    tasks.set(index, task);
+                    sequences.set(index, position + 1);
+                    if (sleepingWorkers.get() > 0) {
+                        signal(notEmpty);
+                    }
+                    return true;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+    private Runnable poll() {
+        long position = dequeuePosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    Runnable task = tasks.get(index);
+                    tasks.set(index, null);
+                    sequences.set(index, position + mask + 1);
+                    if (partitioned) {
+                        release();
+                    } else if (sleepingProducers.get() > 0) {
+                        signal(notFull);
+                    }
+                    return task;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+    private void awaitSpace(BooleanSupplier attempt) {
+        int spins = 0;
+        while (!attempt.getAsBoolean()) {
+            if (closed) {
+                throw new RejectedExecutionException("Dispatch queue is closed");
+            }
+            if (spins++ < SPINS_BEFORE_SLEEP) {
+                Thread.onSpinWait();
+                continue;
+            }
+            lock.lock();
+            sleepingProducers.incrementAndGet();
+            try {
+                // Registered as sleeper before the check, so a worker freeing a slot now is guaranteed to signal
+                if (depth() >= capacity && !closed) {
+                    notFull.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for dispatch queue space", e);
+            } finally {
+                sleepingProducers.decrementAndGet();
+                lock.unlock();
+            }
+        }
+    }
+
+    private void drain() {
+        int spins = 0;
+        boolean lanesFirst = false;
+        while (true) {
+            // Alternates the side tried first, so neither plain commands nor lanes starve the other
+            lanesFirst = !lanesFirst;
+            Runnable task = next(lanesFirst);
+            if (task != null) {
+                spins = 0;
+                run(task);
+                continue;
+            }
+            if (draining && isIdle()) {
+                return;
+            }
+            if (spins++ < SPINS_BEFORE_SLEEP) {
+                Thread.onSpinWait();
+                continue;
+            }
+            awaitTask();
+        }
+    }
+
+    private void awaitTask() {
+        lock.lock();
+        sleepingWorkers.incrementAndGet();
+        try {
+            // Registered as sleeper before the check, so a producer queueing a task now is guaranteed to signal
+            if (isIdle() && !draining) {
+                notEmpty.awaitUninterruptibly();
+            }
+        } finally {
+            sleepingWorkers.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private Runnable next(boolean lanesFirst) {
+        Runnable task = lanesFirst ? laneDrains.poll() : poll();
+        if (task == null) {
+            task = lanesFirst ? poll() : laneDrains.poll();
+        }
+        return task;
+    }
+
+    // Nothing a worker could take, commands waiting in a lane whose drain is running are not counted
+    private boolean isIdle() {
+        return enqueuePosition.get() == dequeuePosition.get() && laneDrains.isEmpty();
+    }
+
+    private void runRemaining() {
+        Runnable task;
+        while ((task = next(false)) != null) {
+            run(task);
+        }
+    }
+
+    // Reports every failure of a task, including errors, to the uncaught exception handler and keeps the worker alive
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            Thread thread = Thread.currentThread();
+            try {
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            } catch (Throwable ignored) {
+                // A failing handler must not stop the worker either
+            }
+        }
+    }
+
+    private void signal(Condition condition) {
+        lock.lock();
+        try {
+            condition.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signalAll(Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int depth() {
+        if (partitioned) {
+            return occupied.get();
+        }
+        return (int) Math.max(0, enqueuePosition.get() - dequeuePosition.get());
+    }
+
+    /**
+     * Rejects new tasks, waits until every queued task is handled and stops the workers
+     * Tasks published by producers that passed the closed check just before close are run by close or by their producer.
+     * Called from a task, on a worker or on a producer with CALLER_RUNS policy, it does not wait for its own thread:
+     * the calling worker stops after the task returns and the queue is empty.
+     */
+    void close() {
+        closed = true;
+        signalAll(notFull);
+        draining = true;
+        signalAll(notEmpty);
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive() && worker != Thread.currentThread()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        terminated = true;
+        runRemaining();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    QueueSnapshot snapshot() {
+        return new QueueSnapshot(capacity, depth(), workers.length, dropped.sum(), callerRuns.sum());
+    }
+}
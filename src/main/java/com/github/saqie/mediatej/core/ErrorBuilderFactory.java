@@ -0,0 +1,42 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.ErrorBuilder;
+import com.github.saqie.mediatej.core.exception.MediateJConflictException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Supplier;
+
+final class ErrorBuilderFactory {
+
+    private ErrorBuilderFactory() {
+    }
+
+    /**
+     * Resolves the no args constructor of the given error builder class once,
+     * so a missing or inaccessible constructor fails on build instead of on the first send
+     */
+    static Supplier<ErrorBuilder> noArgsConstructor(ErrorBuilder errorBuilder) {
+        String className = errorBuilder.getClass().getCanonicalName();
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.lookup()
+                    .unreflectConstructor(errorBuilder.getClass().getDeclaredConstructor())
+                    .asType(MethodType.methodType(ErrorBuilder.class));
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new MediateJConflictException("Cannot create instance for class " + className
+                    + " make sure that class have no args constructor", e);
+        }
+        return () -> {
+            try {
+                return (ErrorBuilder) constructor.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new MediateJConflictException("Cannot create instance for class " + className, e);
+            }
+        };
+    }
+
+}
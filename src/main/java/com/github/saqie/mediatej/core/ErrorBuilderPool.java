@@ -0,0 +1,57 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.ErrorBuilder;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Lock free, bounded pool of error builders.
+ * Every thread starts probing from its own slot, so uncontended threads usually hit their first slot.
+ * When the pool is empty a new instance is created, when it is full the released instance is dropped.
+ */
+final class ErrorBuilderPool implements ErrorBuilderProvider {
+
+    private final AtomicReferenceArray<ErrorBuilder> slots;
+    private final Supplier<? extends ErrorBuilder> errorBuilderSupplier;
+
+    ErrorBuilderPool(Supplier<? extends ErrorBuilder> errorBuilderSupplier, int size) {
+        this.errorBuilderSupplier = errorBuilderSupplier;
+        this.slots = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.set(i, errorBuilderSupplier.get());
+        }
+    }
+
+    @Override
+    public ErrorBuilder acquire() {
+        int length = slots.length();
+        int start = probe(length);
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            ErrorBuilder errorBuilder = slots.get(index);
+            if (errorBuilder != null && slots.compareAndSet(index, errorBuilder, null)) {
+                errorBuilder.reset();
+                return errorBuilder;
+            }
+        }
+        return errorBuilderSupplier.get();
+    }
+
+    @Override
+    public void release(ErrorBuilder errorBuilder) {
+        int length = slots.length();
+        int start = probe(length);
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, errorBuilder)) {
+                return;
+            }
+        }
+    }
+
+    private static int probe(int length) {
+        return (int) (Thread.currentThread().getId() % length);
+    }
+
+}
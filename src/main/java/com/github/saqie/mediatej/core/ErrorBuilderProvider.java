@@ -0,0 +1,12 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.ErrorBuilder;
+
+interface ErrorBuilderProvider {
+
+    ErrorBuilder acquire();
+
+    default void release(ErrorBuilder errorBuilder) {
+    }
+
+}
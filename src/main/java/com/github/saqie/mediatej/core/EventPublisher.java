@@ -0,0 +1,151 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Event;
+import com.github.saqie.mediatej.api.EventHandler;
+import com.github.saqie.mediatej.core.configuration.PublishStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import static com.github.saqie.mediatej.core.Check.requireNonNullArgument;
+
+final class EventPublisher {
+
+    private static final EventHandler<?>[] NO_SUBSCRIBERS = new EventHandler<?>[0];
+
+    private final Class<?>[] eventTypes;
+    private final EventHandler<?>[] eventHandlers;
+    private final PublishStrategy publishStrategy;
+    private final Executor executor;
+    private final ForkJoinPool parallelPool;
+
+    // Subscribers of every published event class, precomputed on the first publish of the class,
+    // handlers of supertypes are included in registration order
+    private final ClassValue<EventHandler<?>[]> subscribers = new ClassValue<>() {
+        @Override
+        protected EventHandler<?>[] computeValue(Class<?> type) {
+            List<EventHandler<?>> matching = new ArrayList<>();
+            for (int i = 0; i < eventTypes.length; i++) {
+                if (eventTypes[i].isAssignableFrom(type)) {
+                    matching.add(eventHandlers[i]);
+                }
+            }
+            return matching.isEmpty() ? NO_SUBSCRIBERS : matching.toArray(NO_SUBSCRIBERS);
+        }
+    };
+
+    EventPublisher(List<EventHandler<?>> eventHandlers, PublishStrategy publishStrategy, Executor executor) {
+        this.eventHandlers = eventHandlers.toArray(NO_SUBSCRIBERS);
+        this.eventTypes = new Class<?>[this.eventHandlers.length];
+        for (int i = 0; i < this.eventHandlers.length; i++) {
+            this.eventTypes[i] = ClassKeyData.ofEventHandler(this.eventHandlers[i]).commandType();
+        }
+        this.publishStrategy = publishStrategy;
+        this.executor = executor;
+        this.parallelPool = executor instanceof ForkJoinPool ? (ForkJoinPool) executor : ForkJoinPool.commonPool();
+    }
+
+    @SuppressWarnings("unchecked")
+    <E extends Event> void publish(E event) {
+        requireNonNullArgument(event, "Event cannot be null");
+        EventHandler<? super E>[] handlers = (EventHandler<? super E>[]) subscribers.get(event.getClass());
+        if (handlers.length == 0) {
+            return;
+        }
+        switch (publishStrategy) {
+            case PARALLEL:
+                publishParallel(event, handlers);
+                break;
+            case FIRE_AND_FORGET:
+                // One task for the whole fan-out, a rejecting executor drops the event for every handler or for none
+                executor.execute(() -> publishSequential(event, handlers));
+                break;
+            default:
+                publishSequential(event, handlers);
+        }
+    }
+
+    /**
+     * Calls every handler even if one of them fails, the first failure is rethrown with the others suppressed
+     */
+    private static <E extends Event> void publishSequential(E event, EventHandler<? super E>[] handlers) {
+        RuntimeException failure = null;
+        for (EventHandler<? super E> handler : handlers) {
+            try {
+                handler.handle(event);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private <E extends Event> void publishParallel(E event, EventHandler<? super E>[] handlers) {
+        if (handlers.length == 1) {
+            publishSequential(event, handlers);
+            return;
+        }
+        Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+        FanOut<E> fanOut = new FanOut<>(event, handlers, 0, handlers.length, failures);
+        if (ForkJoinTask.inForkJoinPool()) {
+            fanOut.invoke();
+        } else {
+            parallelPool.invoke(fanOut);
+        }
+        RuntimeException failure = failures.poll();
+        if (failure != null) {
+            for (RuntimeException suppressed = failures.poll(); suppressed != null; suppressed = failures.poll()) {
+                failure.addSuppressed(suppressed);
+            }
+            throw failure;
+        }
+    }
+
+    /**
+     * Splits the subscriber range in halves until single handlers remain, so idle workers can steal half of the fan-out
+     */
+    private static final class FanOut<E extends Event> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final E event;
+        private final EventHandler<? super E>[] handlers;
+        private final int from;
+        private final int to;
+        private final Queue<RuntimeException> failures;
+
+        private FanOut(E event, EventHandler<? super E>[] handlers, int from, int to, Queue<RuntimeException> failures) {
+            this.event = event;
+            this.handlers = handlers;
+            this.from = from;
+            this.to = to;
+            this.failures = failures;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    handlers[from].handle(event);
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FanOut<>(event, handlers, from, middle, failures), new FanOut<>(event, handlers, middle, to, failures));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.saqie.mediatej.core;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the type arguments a class binds to one of its generic interfaces by walking superclasses and
+ * super interfaces, type variables bound along the way are substituted with the arguments of the subclass
+ */
+final class GenericTypeResolver {
+
+    private GenericTypeResolver() {
+    }
+
+    /**
+     * @return classes bound to the type parameters of {@code genericInterface}, elements are null for arguments that
+     * stay unbound type variables, the whole result is null if {@code type} implements {@code genericInterface} as a raw type
+     */
+    static Class<?>[] resolveTypeArguments(Class<?> type, Class<?> genericInterface) {
+        return resolveTypeArguments(type, genericInterface, Map.of());
+    }
+
+    private static Class<?>[] resolveTypeArguments(Class<?> type, Class<?> genericInterface, Map<TypeVariable<?>, Type> bindings) {
+        Type genericSuperclass = type.getGenericSuperclass();
+        if (genericSuperclass != null) {
+            Class<?>[] typeArguments = resolveFromSupertype(genericSuperclass, genericInterface, bindings);
+            if (typeArguments != null) {
+                return typeArguments;
+            }
+        }
+        for (Type genericSupertype : type.getGenericInterfaces()) {
+            Class<?>[] typeArguments = resolveFromSupertype(genericSupertype, genericInterface, bindings);
+            if (typeArguments != null) {
+                return typeArguments;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?>[] resolveFromSupertype(Type supertype, Class<?> genericInterface, Map<TypeVariable<?>, Type> bindings) {
+        Class<?> rawSupertype = rawClass(supertype);
+        if (rawSupertype == null || !genericInterface.isAssignableFrom(rawSupertype)) {
+            return null;
+        }
+        if (!(supertype instanceof ParameterizedType)) {
+            // Raw supertype erases every type argument above it
+            return rawSupertype == genericInterface ? null : resolveTypeArguments(rawSupertype, genericInterface, Map.of());
+        }
+        Type[] actualTypeArguments = ((ParameterizedType) supertype).getActualTypeArguments();
+        if (rawSupertype == genericInterface) {
+            Class<?>[] typeArguments = new Class<?>[actualTypeArguments.length];
+            for (int i = 0; i < actualTypeArguments.length; i++) {
+                typeArguments[i] = rawClass(substitute(actualTypeArguments[i], bindings));
+            }
+            return typeArguments;
+        }
+        TypeVariable<?>[] typeParameters = rawSupertype.getTypeParameters();
+        Map<TypeVariable<?>, Type> supertypeBindings = new HashMap<>(typeParameters.length * 2);
+        for (int i = 0; i < typeParameters.length; i++) {
+            supertypeBindings.put(typeParameters[i], substitute(actualTypeArguments[i], bindings));
+        }
+        return resolveTypeArguments(rawSupertype, genericInterface, supertypeBindings);
+    }
+
+    private static Type substitute(Type type, Map<TypeVariable<?>, Type> bindings) {
+        if (type instanceof TypeVariable) {
+            return bindings.getOrDefault(type, type);
+        }
+        return type;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            Class<?> componentType = rawClass(((GenericArrayType) type).getGenericComponentType());
+            return componentType == null ? null : Array.newInstance(componentType, 0).getClass();
+        }
+        return null;
+    }
+}
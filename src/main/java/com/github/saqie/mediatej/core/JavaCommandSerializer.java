@@ -0,0 +1,39 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandSerializer;
+import com.github.saqie.mediatej.core.exception.MediateJJournalException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Serializer based on Java serialization, journaled commands must implement {@link java.io.Serializable}
+ * Prefer a dedicated format such as JSON when commands change between versions.
+ */
+public final class JavaCommandSerializer implements CommandSerializer {
+
+    @Override
+    public byte[] serialize(Command command) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(command);
+        } catch (IOException e) {
+            throw new MediateJJournalException("Cannot serialize command " + command.getClass().getCanonicalName()
+                    + " make sure that class implements Serializable", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Command deserialize(byte[] data) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (Command) input.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new MediateJJournalException("Cannot deserialize journaled command", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.saqie.mediatej.core;
+
+/**
+ * Capacity shared by the tasks waiting in partition lanes
+ * A task is admitted before it enters its lane and leaves once it is taken out of the lane to run.
+ */
+interface LaneAdmission {
+
+    LaneAdmission UNBOUNDED = new LaneAdmission() {
+        @Override
+        public void admit() {
+        }
+
+        @Override
+        public void leave() {
+        }
+    };
+
+    /**
+     * Waits for space or throws {@link java.util.concurrent.RejectedExecutionException} if the task may not enter its lane
+     */
+    void admit();
+
+    void leave();
+}
@@ -0,0 +1,40 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.metrics.LatencySnapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram, every bucket is a striped counter so recording threads don't contend on one cache line
+ */
+final class LatencyHistogram {
+
+    private final LongAdder[] buckets = new LongAdder[LatencySnapshot.BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        buckets[LatencySnapshot.bucket(nanos)].increment();
+        totalNanos.add(nanos);
+        // Plain read first, the maximum rarely changes once warmed up so the CAS is almost never needed
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+        }
+    }
+
+    LatencySnapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new LatencySnapshot(counts, totalNanos.sum(), maxNanos.get());
+    }
+
+}
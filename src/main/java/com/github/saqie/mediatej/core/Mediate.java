@@ -1,32 +1,391 @@
 package com.github.saqie.mediatej.core;
 
 import com.github.saqie.mediatej.api.*;
+import com.github.saqie.mediatej.core.configuration.DispatchMode;
+import com.github.saqie.mediatej.core.exception.MediateJJournalException;
 import com.github.saqie.mediatej.core.exception.MediateJMissingHandlerException;
+import com.github.saqie.mediatej.core.exception.MediateJTimeoutException;
+import com.github.saqie.mediatej.core.metrics.MetricsExporter;
+import com.github.saqie.mediatej.core.metrics.MetricsSnapshot;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.saqie.mediatej.core.Check.*;
 
-public final class Mediate implements MediateJ {
+public final class Mediate implements MediateJ, AutoCloseable {
 
     private final ValidatorResolver validatorResolver;
-    private final BundleResolver bundleResolver;
+    private final MediateRegistry registry;
+    private final Executor executor;
+    private final DispatchQueue dispatchQueue;
+    private final ExecutorService virtualThreadExecutor;
+    private final boolean limitConcurrentSends;
+    private final PartitionLanes partitionLanes;
+    private final CommandJournal journal;
+    private final List<MetricsExporter> metricsExporters;
+    private final EventPublisher eventPublisher;
 
     public Mediate(MediateConfigurer configurer) {
         requireNonNullArgument(configurer, "Mediate configurer cannot be null");
-        this.bundleResolver = new BundleResolver(configurer);
+        this.registry = new MediateRegistry(configurer);
         this.validatorResolver = new ValidatorResolver(configurer);
+        this.virtualThreadExecutor = DispatchMode.VIRTUAL_THREAD == configurer.dispatchMode()
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : null;
+        this.dispatchQueue = DispatchMode.QUEUED == configurer.dispatchMode()
+                ? new DispatchQueue(configurer.queueCapacity(), configurer.queueWorkers(), configurer.backpressurePolicy(), configurer.partitionLanes() > 0)
+                : null;
+        this.executor = virtualThreadExecutor != null ? virtualThreadExecutor
+                : dispatchQueue != null ? dispatchQueue
+                : configurer.executor();
+        this.partitionLanes = configurer.partitionLanes() <= 0 ? null
+                : dispatchQueue != null ? new PartitionLanes(configurer.partitionLanes(), dispatchQueue::executeLaneDrain, dispatchQueue)
+                : new PartitionLanes(configurer.partitionLanes(), executor, LaneAdmission.UNBOUNDED);
+        this.limitConcurrentSends = configurer.maxConcurrentSendsPerCommand() > 0;
+        this.journal = configurer.journalSupplier() != null ? configurer.journalSupplier().get() : null;
+        this.metricsExporters = List.copyOf(configurer.metricsExporters());
+        this.eventPublisher = new EventPublisher(configurer.eventHandlers(), configurer.publishStrategy(), executor);
         configurer.clear();
     }
 
     /**
      * Sends command to proper handler
      * Throws {@link MediateJMissingHandlerException} if the handler can't be found
+     * Commands of a deduplicated type are skipped if their idempotency key was already sent within the configured time to live
      *
      * @param command -> Command instance to send
      */
     @Override
     public <T extends Command, R extends ErrorBuilder> void send(T command) {
-        CommandBundle<T, R> commandBundle = bundleResolver.resolve(command);
-        validatorResolver.run(command, commandBundle);
-        commandBundle.commandHandler().handle(command);
+        sendCommand(command, journal, 0);
+    }
+
+    /**
+     * Sends command to proper handler within the given timeout, validation and handling included
+     * Once the timeout passes the sending thread is interrupted and {@link MediateJTimeoutException} is thrown,
+     * also when the handler completed after the timeout. The interrupt is cleared before the send returns.
+     * Throws {@link MediateJMissingHandlerException} if the handler can't be found
+     *
+     * @param command -> Command instance to send
+     * @param timeout -> Time budget of the send, takes precedence over the deadline configured for the command type
+     */
+    @Override
+    public <T extends Command> void send(T command, Duration timeout) {
+        requireNonNullArgument(timeout, "Timeout cannot be null");
+        requirePositive(timeout.toNanos(), "Timeout must be greater than 0");
+        sendCommand(command, journal, timeout.toNanos());
+    }
+
+    private <T extends Command, R extends ErrorBuilder> void sendCommand(T command, CommandJournal journal, long timeoutNanos) {
+        CommandRoute<T, R> commandRoute = registry.bundleResolver().resolve(command);
+        long deadlineNanos = timeoutNanos > 0 ? timeoutNanos : commandRoute.deadlineNanos();
+        if (deadlineNanos == 0) {
+            deduplicate(command, commandRoute, journal, null);
+            return;
+        }
+        Deadline deadline = Deadline.start(deadlineNanos);
+        try {
+            deduplicate(command, commandRoute, journal, deadline);
+        } catch (MediateJTimeoutException e) {
+            deadline.finish();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            if (deadline.finish()) {
+                throw deadline.timeout(command, e);
+            }
+            throw e;
+        }
+        if (deadline.finish()) {
+            throw deadline.timeout(command, null);
+        }
+    }
+
+    private <T extends Command, R extends ErrorBuilder> void deduplicate(T command, CommandRoute<T, R> commandRoute, CommandJournal journal, Deadline deadline) {
+        ResultCache<Object, Boolean> deduplication = commandRoute.deduplication();
+        if (deduplication == null) {
+            dispatch(command, commandRoute, journal, deadline);
+            return;
+        }
+        Object idempotencyKey = ((IdempotentCommand) command).idempotencyKey();
+        requireNonNullArgument(idempotencyKey, "Idempotency key cannot be null");
+        if (!deduplication.putIfAbsent(idempotencyKey, Boolean.TRUE)) {
+            return;
+        }
+        try {
+            dispatch(command, commandRoute, journal, deadline);
+        } catch (RuntimeException | Error e) {
+            deduplication.remove(idempotencyKey);
+            throw e;
+        }
+    }
+
+    private <T extends Command, R extends ErrorBuilder> void dispatch(T command, CommandRoute<T, R> commandRoute, CommandJournal journal, Deadline deadline) {
+        CommandMetrics metrics = commandRoute.metrics();
+        if (metrics != null) {
+            sendMeasured(command, commandRoute, metrics, journal, deadline);
+            return;
+        }
+        if (!commandRoute.isValidated(command)) {
+            validatorResolver.run(command, commandRoute.commandBundle());
+            commandRoute.markValidated(command);
+        }
+        if (deadline != null) {
+            deadline.checkExpired(command);
+        }
+        if (journal != null) {
+            journal.append(command);
+        }
+        commandRoute.pipeline().proceed(command);
+    }
+
+    private <T extends Command, R extends ErrorBuilder> void sendMeasured(T command, CommandRoute<T, R> commandRoute, CommandMetrics metrics, CommandJournal journal, Deadline deadline) {
+        long handlingStart = System.nanoTime();
+        if (commandRoute.commandBundle().commandValidator().isPresent() && !commandRoute.isValidated(command)) {
+            handlingStart = validateMeasured(command, commandRoute.commandBundle().commandValidator().get(), metrics, handlingStart);
+            commandRoute.markValidated(command);
+        }
+        if (deadline != null) {
+            deadline.checkExpired(command);
+        }
+        boolean failed = true;
+        try {
+            if (journal != null) {
+                journal.append(command);
+            }
+            commandRoute.pipeline().proceed(command);
+            failed = false;
+        } finally {
+            metrics.recordHandling(System.nanoTime() - handlingStart, failed);
+        }
+    }
+
+    /**
+     * Sends query to proper handler and returns its result
+     * Throws {@link MediateJMissingHandlerException} if the handler can't be found
+     *
+     * @param query -> Query instance to send
+     * @return result returned by the query handler, or the cached result if result caching is enabled for the query type
+     */
+    @Override
+    public <Q extends Query<R>, R> R send(Q query) {
+        QueryRoute<Q, R, ErrorBuilder> queryRoute = registry.bundleResolver().resolve(query);
+        ResultCache<Q, R> resultCache = queryRoute.resultCache();
+        if (resultCache == null) {
+            return handle(query, queryRoute);
+        }
+        ResultCache.CachedValue<R> cached = resultCache.get(query);
+        if (cached != null) {
+            return cached.value();
+        }
+        R result = handle(query, queryRoute);
+        resultCache.put(query, result);
+        return result;
+    }
+
+    private <Q extends Query<R>, R> R handle(Q query, QueryRoute<Q, R, ErrorBuilder> queryRoute) {
+        CommandMetrics metrics = queryRoute.metrics();
+        if (metrics != null) {
+            return handleMeasured(query, queryRoute, metrics);
+        }
+        if (queryRoute.queryValidator() != null) {
+            validatorResolver.run(query, queryRoute.queryValidator());
+        }
+        return queryRoute.queryHandler().handle(query);
+    }
+
+    private <Q extends Query<R>, R> R handleMeasured(Q query, QueryRoute<Q, R, ErrorBuilder> queryRoute, CommandMetrics metrics) {
+        long handlingStart = System.nanoTime();
+        if (queryRoute.queryValidator() != null) {
+            handlingStart = validateMeasured(query, queryRoute.queryValidator(), metrics, handlingStart);
+        }
+        boolean failed = true;
+        try {
+            R result = queryRoute.queryHandler().handle(query);
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordHandling(System.nanoTime() - handlingStart, failed);
+        }
+    }
+
+    // Returns the validation end time, so the handling phase can start from it without reading the clock again
+    private <T extends Command, R extends ErrorBuilder> long validateMeasured(T command, CommandValidator<T, R> validator, CommandMetrics metrics, long validationStart) {
+        boolean failed = true;
+        try {
+            validatorResolver.run(command, validator);
+            failed = false;
+        } finally {
+            if (failed) {
+                metrics.recordValidation(System.nanoTime() - validationStart, true);
+            }
+        }
+        long validationEnd = System.nanoTime();
+        metrics.recordValidation(validationEnd - validationStart, false);
+        return validationEnd;
+    }
+
+    /**
+     * Sends commands grouped by their type, every group is resolved and validated once with one error builder
+     * All groups are validated before any command is handled, {@link BatchCommandHandler} handles the whole group at once, bypassing pipeline behaviors
+     * The batch runs on the calling thread without deadlines, cached validations, deduplication, the concurrency limit of sendAsync
+     * or per command metrics, every command is validated and the batch takes as long as its handlers
+     * Throws {@link MediateJMissingHandlerException} if the handler for any command type can't be found
+     *
+     * @param commands -> Command instances to send
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void sendAll(Collection<? extends Command> commands) {
+        requireNotNullArgument(commands, "Commands cannot be null");
+        Map<Class<?>, List<Command>> commandsByType = new LinkedHashMap<>();
+        for (Command command : commands) {
+            requireNonNullArgument(command, "Command cannot be null");
+            commandsByType.computeIfAbsent(command.getClass(), type -> new ArrayList<>()).add(command);
+        }
+
+        // One dispatch table for the whole batch, even if handlers are replaced meanwhile
+        BundleResolver bundleResolver = registry.bundleResolver();
+        List<List<Command>> groups = new ArrayList<>(commandsByType.values());
+        CommandRoute[] commandRoutes = new CommandRoute[groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            commandRoutes[i] = bundleResolver.resolve(groups.get(i).get(0));
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            validatorResolver.runAll(groups.get(i), commandRoutes[i].commandBundle());
+        }
+        if (journal != null) {
+            groups.forEach(group -> group.forEach(journal::append));
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            CommandHandler commandHandler = commandRoutes[i].commandBundle().commandHandler();
+            if (commandHandler instanceof BatchCommandHandler) {
+                ((BatchCommandHandler) commandHandler).handleAll(groups.get(i));
+            } else {
+                PipelineStep pipeline = commandRoutes[i].pipeline();
+                for (Command command : groups.get(i)) {
+                    pipeline.proceed(command);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends command to proper handler on the configured executor
+     * The command is validated before it is handled, validation errors and {@link MediateJMissingHandlerException}
+     * complete the returned future exceptionally
+     *
+     * A command rejected by the executor, e.g. by a full queue with DROP backpressure policy or after {@link #close()},
+     * completes the returned future exceptionally with {@link RejectedExecutionException}
+     * With partition lanes enabled, {@link PartitionedCommand}s with the same partition key are handled one at a time in send order
+     *
+     * @param command -> Command instance to send
+     * @return future completed once the command is handled
+     */
+    @Override
+    public <T extends Command> CompletableFuture<Void> sendAsync(T command) {
+        Executor commandExecutor = partitionLanes != null && command instanceof PartitionedCommand
+                ? partitionLanes.lane(((PartitionedCommand) command).partitionKey())
+                : executor;
+        ConcurrencyLimiter concurrencyLimiter;
+        try {
+            concurrencyLimiter = limitConcurrentSends ? registry.bundleResolver().resolve(command).concurrencyLimiter() : null;
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (concurrencyLimiter != null) {
+            return concurrencyLimiter.submit(() -> send(command), commandExecutor);
+        }
+        try {
+            return CompletableFuture.runAsync(() -> send(command), commandExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes event to every event handler subscribed to its type or to any of its supertypes
+     * Handlers are called with the publish strategy set in MediateCoreConfigurer, an event without subscribers is ignored
+     *
+     * @param event -> Event instance to publish
+     */
+    @Override
+    public <E extends Event> void publish(E event) {
+        eventPublisher.publish(event);
+    }
+
+    /**
+     * Returns metrics recorded for every command and query type
+     * Empty unless metrics are enabled with {@link MediateCoreConfigurer#collectMetrics(boolean)}
+     */
+    public MetricsSnapshot metrics() {
+        MetricsSnapshot snapshot = registry.bundleResolver().metricsSnapshot();
+        return dispatchQueue == null ? snapshot : new MetricsSnapshot(snapshot.commandMetrics(), dispatchQueue.snapshot(), snapshot.caches());
+    }
+
+    /**
+     * Takes metrics snapshot and passes it to every registered {@link MetricsExporter}
+     */
+    public void exportMetrics() {
+        MetricsSnapshot snapshot = metrics();
+        for (MetricsExporter metricsExporter : metricsExporters) {
+            metricsExporter.export(snapshot);
+        }
+    }
+
+    /**
+     * Returns registry of command and query handlers, which registers, replaces and unregisters handlers while commands are sent
+     */
+    public MediateRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Sends every journaled command again, in journal order, without appending it to the journal
+     * Meant for recovery on startup before new commands are sent, commands appended while replaying are not replayed
+     * Throws {@link MediateJJournalException} if no journal is configured
+     *
+     * @return number of replayed commands
+     */
+    public long replay() {
+        if (journal == null) {
+            throw new MediateJJournalException("Journal is not configured");
+        }
+        return journal.replay(command -> sendCommand(command, null, 0));
+    }
+
+    /**
+     * Stops asynchronous dispatch owned by MediateJ, executors registered in MediateConfigurer are left running
+     * In {@link DispatchMode#QUEUED} mode new commands are rejected, every queued command is handled and the workers stop.
+     * In {@link DispatchMode#VIRTUAL_THREAD} mode running commands are awaited.
+     * Synchronous sends keep working after close, except with a journal, which is forced to disk and closed.
+     */
+    @Override
+    public void close() {
+        if (dispatchQueue != null) {
+            dispatchQueue.close();
+        }
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+            boolean interrupted = false;
+            while (!virtualThreadExecutor.isTerminated()) {
+                try {
+                    virtualThreadExecutor.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
     }
 }
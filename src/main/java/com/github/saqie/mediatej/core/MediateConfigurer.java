@@ -1,39 +1,206 @@
 package com.github.saqie.mediatej.core;
 
 import com.github.saqie.mediatej.api.*;
+import com.github.saqie.mediatej.core.configuration.BackpressurePolicy;
+import com.github.saqie.mediatej.core.configuration.DispatchMode;
 import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
 import com.github.saqie.mediatej.core.configuration.HandlerConflictMode;
+import com.github.saqie.mediatej.core.configuration.HandlerResolutionMode;
+import com.github.saqie.mediatej.core.configuration.PublishStrategy;
+import com.github.saqie.mediatej.core.configuration.ValidationMode;
+import com.github.saqie.mediatej.core.configuration.ValidatorExecution;
 import com.github.saqie.mediatej.core.exception.MediateJConflictException;
+import com.github.saqie.mediatej.core.exception.MediateJScanException;
+import com.github.saqie.mediatej.core.exception.MediateJWrongParameterException;
+import com.github.saqie.mediatej.core.exception.MediateJTimeoutException;
+import com.github.saqie.mediatej.core.index.MediateTypeIndex;
+import com.github.saqie.mediatej.core.metrics.MetricsExporter;
 
 import static com.github.saqie.mediatej.core.Check.*;
 import static com.github.saqie.mediatej.core.Check.requireNotNullArgument;
 
+import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @SuppressWarnings({"UnusedReturnValue", "unused"})
 public final class MediateConfigurer {
 
-    private final Map<String, CommandBundle<? extends Command, ? extends ErrorBuilder>> commandBundleMap = new HashMap<>();
+    private final Map<Class<?>, CommandBundle<? extends Command, ? extends ErrorBuilder>> commandBundleMap = new HashMap<>();
+    private final Map<Class<?>, QueryRoute<?, ?, ?>> queryRouteMap = new HashMap<>();
+    private final Map<Class<?>, ResultCache<?, ?>> resultCacheMap = new HashMap<>();
+    private final Map<Class<?>, ResultCache<Object, Boolean>> deduplicationMap = new HashMap<>();
+    private final Map<Class<?>, ResultCache<Object, CommandBundle<?, ?>>> validationCacheMap = new HashMap<>();
+    private final Map<Class<?>, Long> deadlineMap = new HashMap<>();
+    private final List<PipelineBehavior> behaviors = new ArrayList<>();
+    private final List<EventHandler<?>> eventHandlers = new ArrayList<>();
+    private final List<MetricsExporter> metricsExporters = new ArrayList<>();
     private ErrorBuilder errorBuilder;
+    private Supplier<? extends ErrorBuilder> errorBuilderSupplier;
+    private Executor executor = ForkJoinPool.commonPool();
+    private Supplier<CommandJournal> journalSupplier;
 
     private final HandlerConflictMode handlerConflictMode;
     private final ErrorBuilderInstanceMode errorBuilderInstanceMode;
+    private final int errorBuilderPoolSize;
+    private final DispatchMode dispatchMode;
+    private final int queueCapacity;
+    private final int queueWorkers;
+    private final BackpressurePolicy backpressurePolicy;
+    private final int partitionLanes;
+    private final ValidationMode validationMode;
+    private final HandlerResolutionMode handlerResolutionMode;
+    private final PublishStrategy publishStrategy;
+    private final int maxConcurrentSendsPerCommand;
+    private final boolean collectMetrics;
+    private final Path scanIndexFile;
 
     public MediateConfigurer() {
         MediateCoreConfigurer coreConfigurer = new MediateCoreConfigurer();
         this.errorBuilderInstanceMode = coreConfigurer.errorBuilderInstanceMode();
         this.handlerConflictMode = coreConfigurer.handlerConflictMode();
+        this.errorBuilderPoolSize = coreConfigurer.errorBuilderPoolSize();
+        this.dispatchMode = coreConfigurer.dispatchMode();
+        this.queueCapacity = coreConfigurer.queueCapacity();
+        this.queueWorkers = coreConfigurer.queueWorkers();
+        this.backpressurePolicy = coreConfigurer.backpressurePolicy();
+        this.partitionLanes = coreConfigurer.partitionLanes();
+        this.validationMode = coreConfigurer.validationMode();
+        this.handlerResolutionMode = coreConfigurer.handlerResolutionMode();
+        this.publishStrategy = coreConfigurer.publishStrategy();
+        this.maxConcurrentSendsPerCommand = coreConfigurer.maxConcurrentSendsPerCommand();
+        this.collectMetrics = coreConfigurer.collectMetrics();
+        this.scanIndexFile = coreConfigurer.scanIndexFile();
     }
 
     public MediateConfigurer(MediateCoreConfigurer coreConfigurer) {
         requireNonNullArgument(coreConfigurer, "Core configuration cannot be null");
         this.errorBuilderInstanceMode = coreConfigurer.errorBuilderInstanceMode();
         this.handlerConflictMode = coreConfigurer.handlerConflictMode();
+        this.errorBuilderPoolSize = coreConfigurer.errorBuilderPoolSize();
+        this.dispatchMode = coreConfigurer.dispatchMode();
+        this.queueCapacity = coreConfigurer.queueCapacity();
+        this.queueWorkers = coreConfigurer.queueWorkers();
+        this.backpressurePolicy = coreConfigurer.backpressurePolicy();
+        this.partitionLanes = coreConfigurer.partitionLanes();
+        this.validationMode = coreConfigurer.validationMode();
+        this.handlerResolutionMode = coreConfigurer.handlerResolutionMode();
+        this.publishStrategy = coreConfigurer.publishStrategy();
+        this.maxConcurrentSendsPerCommand = coreConfigurer.maxConcurrentSendsPerCommand();
+        this.collectMetrics = coreConfigurer.collectMetrics();
+        this.scanIndexFile = coreConfigurer.scanIndexFile();
     }
 
     public <T extends ErrorBuilder> MediateConfigurer registerErrorBuilder(T errorBuilder) {
         requireNonNullArgument(errorBuilder, "ErrorBuilder cannot be null");
+        requireMergeIfParallel(errorBuilder);
         this.errorBuilder = errorBuilder;
+        this.errorBuilderSupplier = null;
+        return this;
+    }
+
+    /**
+     * Registers a factory for error builders, used instead of the reflective no args constructor
+     * whenever a new error builder instance is needed.
+     * The supplier is called once during registration to validate it and to resolve the error builder type.
+     *
+     * @param errorBuilderSupplier -> Supplier that creates a new error builder on every call
+     */
+    public MediateConfigurer registerErrorBuilderSupplier(Supplier<? extends ErrorBuilder> errorBuilderSupplier) {
+        requireNonNullArgument(errorBuilderSupplier, "ErrorBuilder supplier cannot be null");
+        ErrorBuilder errorBuilder = errorBuilderSupplier.get();
+        requireNonNullArgument(errorBuilder, "ErrorBuilder supplier cannot return null");
+        requireMergeIfParallel(errorBuilder);
+        this.errorBuilder = errorBuilder;
+        this.errorBuilderSupplier = errorBuilderSupplier;
+        return this;
+    }
+
+    /**
+     * Registers executor used by {@link Mediate#sendAsync(Command)}, e.g. a fixed thread pool
+     * or Executors.newVirtualThreadPerTaskExecutor() on Java 21+
+     * Defaults to {@link ForkJoinPool#commonPool()}, not used in {@link DispatchMode#VIRTUAL_THREAD} dispatch mode
+     *
+     * @param executor -> Executor that runs asynchronously sent commands
+     */
+    public MediateConfigurer registerExecutor(Executor executor) {
+        requireNonNullArgument(executor, "Executor cannot be null");
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Writes every command to an append-only journal after it is validated and before it is handled, see {@link Mediate#replay()}
+     * Uses 64 MiB segment files and forces appended commands to disk every 10 milliseconds
+     *
+     * @param directory  -> Directory of journal segment files, created if missing, an existing journal is continued
+     * @param serializer -> Serializer of journaled commands, e.g. {@link JavaCommandSerializer}
+     */
+    public MediateConfigurer journal(Path directory, CommandSerializer serializer) {
+        return journal(directory, serializer, 64 * 1024 * 1024, Duration.ofMillis(10));
+    }
+
+    /**
+     * Writes every command to an append-only journal after it is validated and before it is handled, see {@link Mediate#replay()}
+     * Appended commands survive a crash of the process at once, the flush interval bounds what may be lost if the machine fails
+     *
+     * @param directory     -> Directory of journal segment files, created if missing, an existing journal is continued
+     * @param serializer    -> Serializer of journaled commands, e.g. {@link JavaCommandSerializer}
+     * @param segmentSize   -> Size of one segment file in bytes, limits the size of a single serialized command
+     * @param flushInterval -> How often appended commands are forced to disk in one batch,
+     *                      {@link Duration#ZERO} forces every command before it is handled
+     */
+    public MediateConfigurer journal(Path directory, CommandSerializer serializer, int segmentSize, Duration flushInterval) {
+        requireNonNullArgument(directory, "Journal directory cannot be null");
+        requireNonNullArgument(serializer, "Command serializer cannot be null");
+        requireNonNullArgument(flushInterval, "Flush interval cannot be null");
+        requirePositive(segmentSize, "Journal segment size must be greater than 0");
+        if (flushInterval.isNegative()) {
+            throw new MediateJWrongParameterException("Flush interval cannot be negative");
+        }
+        this.journalSupplier = () -> new CommandJournal(directory, serializer, segmentSize, flushInterval.toNanos());
+        return this;
+    }
+
+    /**
+     * Registers behavior wrapped around command handlers
+     * Behaviors run in registration order, the first registered behavior is the outermost one
+     *
+     * @param behavior -> Pipeline behavior, e.g. timing, transactions, retries or logging
+     */
+    public MediateConfigurer registerBehavior(PipelineBehavior behavior) {
+        requireNonNullArgument(behavior, "Pipeline behavior cannot be null");
+        behaviors.add(behavior);
+        return this;
+    }
+
+    /**
+     * Registers exporter called by {@link Mediate#exportMetrics()}
+     * Metrics are only recorded when enabled with {@link MediateCoreConfigurer#collectMetrics(boolean)}
+     *
+     * @param metricsExporter -> Exporter that publishes metrics snapshots
+     */
+    public MediateConfigurer registerMetricsExporter(MetricsExporter metricsExporter) {
+        requireNonNullArgument(metricsExporter, "Metrics exporter cannot be null");
+        metricsExporters.add(metricsExporter);
+        return this;
+    }
+
+    /**
+     * Registers a build-time type index, e.g. one generated by the MediateJ-processor annotation processor
+     * Generated indexes on the classpath are loaded automatically, registering them by hand is needed only
+     * when they are not visible to {@link java.util.ServiceLoader}. Indexes are shared by every configurer.
+     *
+     * @param typeIndex -> Index resolving generic parameters of handlers and validators without reflection
+     */
+    public MediateConfigurer registerTypeIndex(MediateTypeIndex typeIndex) {
+        requireNonNullArgument(typeIndex, "Type index cannot be null");
+        TypeIndexes.register(typeIndex);
         return this;
     }
 
@@ -41,7 +208,7 @@ public final class MediateConfigurer {
         requireNonNullArgument(commandHandler, "Command handler cannot be null");
         ClassKeyData keyData = MediateHelper.getKeyFromClass(commandHandler);
         checkHandlerConflicts(keyData);
-        commandBundleMap.put(keyData.classKey(), new CommandBundle<>(commandHandler, null));
+        commandBundleMap.put(keyData.commandType(), new CommandBundle<>(commandHandler, null));
         return this;
     }
 
@@ -50,7 +217,7 @@ public final class MediateConfigurer {
         commandHandlerList.forEach(handler -> {
             ClassKeyData keyData = MediateHelper.getKeyFromClass(handler);
             checkHandlerConflicts(keyData);
-            commandBundleMap.put(keyData.classKey(), new CommandBundle<>(handler, null));
+            commandBundleMap.put(keyData.commandType(), new CommandBundle<>(handler, null));
         });
         return this;
     }
@@ -65,7 +232,7 @@ public final class MediateConfigurer {
                         ClassKeyData validatorClassKeyData = MediateHelper.getKeyFromClass(validator);
                         checkClassesKeysData(handlerClassKeyData, validatorClassKeyData, errorBuilder);
                     });
-            commandBundleMap.put(handlerClassKeyData.classKey(), commandBundle);
+            commandBundleMap.put(handlerClassKeyData.commandType(), commandBundle);
         });
         return this;
     }
@@ -75,14 +242,14 @@ public final class MediateConfigurer {
         requireNotNullArgument(commandValidators, "Command validators cannot be null");
 
         // Resolve handlers
-        Map<String, CommandHandler<T>> tempCommandHandlerMap = new HashMap<>();
+        Map<Class<?>, CommandHandler<T>> tempCommandHandlerMap = new HashMap<>();
         commandHandlers.forEach(handler -> {
             ClassKeyData keyData = MediateHelper.getKeyFromClass(handler);
             checkHandlerConflicts(keyData, tempCommandHandlerMap);
-            tempCommandHandlerMap.put(keyData.classKey(), handler);
+            tempCommandHandlerMap.put(keyData.commandType(), handler);
         });
 
-        Map<String, CommandValidator<T, R>> tempCommandValidatorMap = MediateHelper.resolveValidators(commandValidators);
+        Map<Class<?>, CommandValidator<T, R>> tempCommandValidatorMap = MediateHelper.resolveValidators(commandValidators);
 
         scaleDownToCommandBundleMap(tempCommandHandlerMap, tempCommandValidatorMap);
         return this;
@@ -97,44 +264,293 @@ public final class MediateConfigurer {
             ClassKeyData validatorClassKeyData = MediateHelper.getKeyFromClass(commandValidator);
             checkClassesKeysData(handlerClassKeyData, validatorClassKeyData, errorBuilder);
         }
-        commandBundleMap.put(handlerClassKeyData.classKey(), new CommandBundle<>(commandHandler, commandValidator));
+        commandBundleMap.put(handlerClassKeyData.commandType(), new CommandBundle<>(commandHandler, commandValidator));
+        return this;
+    }
+
+
+    /**
+     * Registers command handler with several validators of its command type
+     * {@link ValidatorExecution#SEQUENTIAL} runs them one by one in list order with one error builder. {@link ValidatorExecution#PARALLEL}
+     * runs them at once on the registered executor if it is a ForkJoinPool (otherwise ForkJoinPool.commonPool()), each with
+     * its own error builder, and merges their errors with {@link MergeableErrorBuilder#merge(ErrorBuilder)}, so validation takes as long
+     * as the slowest validator. sendAll runs them one by one in both cases.
+     * Parallel validators require an error builder implementing {@link MergeableErrorBuilder}, also when it is registered again later,
+     * and its supplier or no args constructor is resolved when MediateJ is built.
+     *
+     * @param commandHandler     -> Handler of the command type
+     * @param commandValidators  -> Validators of the command type, requires error builder registered before
+     * @param validatorExecution -> How the validators are run
+     */
+    public <T extends Command, R extends ErrorBuilder> MediateConfigurer register(CommandHandler<T> commandHandler, List<CommandValidator<T, R>> commandValidators,
+                                                                                 ValidatorExecution validatorExecution) {
+        requireNonNullArgument(commandHandler, "Command handler cannot be null");
+        requireNotNullArgument(commandValidators, "Command validators cannot be null");
+        requireNonNullArgument(validatorExecution, "Validator execution cannot be null");
+        ClassKeyData handlerClassKeyData = MediateHelper.getKeyFromClass(commandHandler);
+        checkHandlerConflicts(handlerClassKeyData);
+        for (CommandValidator<T, R> commandValidator : commandValidators) {
+            requireNonNullArgument(commandValidator, "Command validator cannot be null");
+            checkClassesKeysData(handlerClassKeyData, MediateHelper.getKeyFromClass(commandValidator), errorBuilder);
+        }
+        boolean parallel = ValidatorExecution.PARALLEL == validatorExecution && commandValidators.size() > 1;
+        if (parallel) {
+            requireMerge(errorBuilder);
+        }
+        CommandValidator<T, R> commandValidator = commandValidators.isEmpty() ? null
+                : commandValidators.size() == 1 ? commandValidators.get(0)
+                : new CompositeCommandValidator<>(commandValidators, parallel);
+        commandBundleMap.put(handlerClassKeyData.commandType(), new CommandBundle<>(commandHandler, commandValidator));
+        return this;
+    }
+
+    /**
+     * Subscribes event handler to events of its type and of the type subclasses, many handlers can subscribe to one type
+     * Handlers are called in registration order when the publish strategy is sequential
+     *
+     * @param eventHandler -> Handler called for every published event of its type
+     */
+    public <E extends Event> MediateConfigurer registerEventHandler(EventHandler<E> eventHandler) {
+        requireNonNullArgument(eventHandler, "Event handler cannot be null");
+        MediateHelper.getKeyFromEventHandler(eventHandler);
+        eventHandlers.add(eventHandler);
+        return this;
+    }
+
+    public <Q extends Query<R>, R> MediateConfigurer registerQueryHandler(QueryHandler<Q, R> queryHandler) {
+        return registerQueryHandler(queryHandler, null);
+    }
+
+    public <Q extends Query<R>, R, B extends ErrorBuilder> MediateConfigurer registerQueryHandler(QueryHandler<Q, R> queryHandler, CommandValidator<Q, B> queryValidator) {
+        requireNonNullArgument(queryHandler, "Query handler cannot be null");
+        ClassKeyData handlerClassKeyData = MediateHelper.getKeyFromQueryHandler(queryHandler);
+        checkHandlerConflicts(handlerClassKeyData, queryRouteMap);
+        if (queryValidator != null) {
+            ClassKeyData validatorClassKeyData = MediateHelper.getKeyFromClass(queryValidator);
+            checkClassesKeysData(handlerClassKeyData, validatorClassKeyData, errorBuilder);
+        }
+        queryRouteMap.put(handlerClassKeyData.commandType(), new QueryRoute<>(queryHandler, queryValidator));
+        return this;
+    }
+
+    /**
+     * Finds and registers command handlers, query handlers, event handlers and validators in the given packages and their subpackages
+     * Found classes need a no args constructor, validators are matched with handlers by command type and require
+     * an error builder registered before the scan, more than one validator for a command type throws {@link MediateJConflictException}.
+     * With an index file set (see {@link MediateCoreConfigurer#scanIndexFile(Path)}) the found class names are kept in it,
+     * later startups load them from the index instead of scanning again until a class in the scanned packages changes.
+     *
+     * @param packages -> Packages to scan, e.g. "com.example.orders"
+     */
+    public MediateConfigurer scan(String... packages) {
+        requireNonNullArgument(packages, "Packages cannot be null");
+        for (String packageName : packages) {
+            requireNonNullArgument(packageName, "Package cannot be null");
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        ClasspathScanner scanner = new ClasspathScanner(classLoader == null ? MediateConfigurer.class.getClassLoader() : classLoader,
+                Arrays.asList(packages));
+        if (scanIndexFile == null) {
+            registerScanned(scanner.scan());
+            return this;
+        }
+        long fingerprint = scanner.fingerprint();
+        List<String> classNames = ScanIndex.read(scanIndexFile, fingerprint, scanner.packages());
+        List<Class<?>> classes = classNames != null ? scanner.loadIndexed(classNames) : null;
+        if (classes == null) {
+            classes = scanner.scan();
+            ScanIndex.write(scanIndexFile, fingerprint, scanner.packages(), classes.stream().map(Class::getName).collect(Collectors.toList()));
+        }
+        registerScanned(classes);
+        return this;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void registerScanned(List<Class<?>> classes) {
+        List<Object> instances = new ArrayList<>(classes.size());
+        Map<Class<?>, CommandValidator> validators = new HashMap<>();
+        for (Class<?> type : classes) {
+            Object instance = newInstance(type);
+            instances.add(instance);
+            if (instance instanceof CommandValidator) {
+                Class<?> commandType = MediateHelper.getKeyFromClass((CommandValidator) instance).commandType();
+                CommandValidator found = validators.put(commandType, (CommandValidator) instance);
+                if (found != null) {
+                    throw new MediateJConflictException("Found more than one validator for " + commandType.getCanonicalName() + ": "
+                            + found.getClass().getCanonicalName() + " and " + instance.getClass().getCanonicalName());
+                }
+            }
+        }
+        for (Object instance : instances) {
+            if (instance instanceof QueryHandler) {
+                QueryHandler queryHandler = (QueryHandler) instance;
+                registerQueryHandler(queryHandler, validators.get(MediateHelper.getKeyFromQueryHandler(queryHandler).commandType()));
+            } else if (instance instanceof CommandHandler) {
+                CommandHandler commandHandler = (CommandHandler) instance;
+                register(commandHandler, validators.get(MediateHelper.getKeyFromClass(commandHandler).commandType()));
+            }
+            if (instance instanceof EventHandler) {
+                registerEventHandler((EventHandler) instance);
+            }
+        }
+    }
+
+    private static Object newInstance(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.trySetAccessible();
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new MediateJScanException("Cannot create instance for class " + type.getCanonicalName()
+                    + " make sure that class have no args constructor", e);
+        }
+    }
+
+    /**
+     * Caches results of the given query type, keyed by query equality
+     * Queries equal to an already handled one skip validation and handling until the entry is evicted
+     * Use only for idempotent queries with proper equals and hashCode
+     *
+     * @param queryType   -> Query class whose results are cached
+     * @param maximumSize -> Maximum number of cached results, least recently used results are evicted first
+     */
+    public <Q extends Query<?>> MediateConfigurer cacheResults(Class<Q> queryType, int maximumSize) {
+        return cacheResults(queryType, maximumSize, Duration.ZERO);
+    }
+
+    /**
+     * Caches results of the given query type, keyed by query equality
+     * Queries equal to an already handled one skip validation and handling until the entry expires or is evicted
+     * Use only for idempotent queries with proper equals and hashCode
+     *
+     * @param queryType   -> Query class whose results are cached
+     * @param maximumSize -> Maximum number of cached results, least recently used results are evicted first
+     * @param timeToLive  -> How long a result stays cached, {@link Duration#ZERO} keeps it until evicted
+     */
+    public <Q extends Query<?>> MediateConfigurer cacheResults(Class<Q> queryType, int maximumSize, Duration timeToLive) {
+        requireNonNullArgument(queryType, "Query type cannot be null");
+        requireNonNullArgument(timeToLive, "Time to live cannot be null");
+        requirePositive(maximumSize, "Maximum cache size must be greater than 0");
+        resultCacheMap.put(queryType, new ResultCache<>(maximumSize, timeToLive.toNanos()));
+        return this;
+    }
+
+    /**
+     * Skips commands of the given type whose idempotency key was already sent within the time to live
+     * The key is claimed before the command is validated, so a duplicate sent while the first command is still handled is skipped as well,
+     * if validation or handling fails the key is released and the command may be retried
+     * Applies to send and sendAsync, sendAll handles every command
+     *
+     * @param commandType -> Command class to deduplicate
+     * @param maximumSize -> Maximum number of remembered keys, least recently used keys are evicted first
+     * @param timeToLive  -> How long a key is remembered, {@link Duration#ZERO} keeps it until evicted
+     */
+    public <T extends IdempotentCommand> MediateConfigurer deduplicate(Class<T> commandType, int maximumSize, Duration timeToLive) {
+        requireNonNullArgument(commandType, "Command type cannot be null");
+        requireNonNullArgument(timeToLive, "Time to live cannot be null");
+        requirePositive(maximumSize, "Maximum cache size must be greater than 0");
+        deduplicationMap.put(commandType, new ResultCache<>(maximumSize, timeToLive.toNanos()));
+        return this;
+    }
+
+    /**
+     * Remembers commands of the given type that passed validation, keyed by command equality
+     * Commands equal to an already validated one skip their validators until the entry expires or is evicted, failed validations are not cached
+     * Use only for immutable commands with proper equals and hashCode, e.g. records, whose validators are deterministic
+     * Applies to send and sendAsync, not to sendAll. Query types are rejected by {@link #build()}
+     *
+     * @param commandType -> Command class whose successful validations are cached
+     * @param maximumSize -> Maximum number of remembered commands, least recently used commands are evicted first
+     * @param timeToLive  -> How long a validation stays cached, {@link Duration#ZERO} keeps it until evicted
+     */
+    public <T extends Command> MediateConfigurer cacheValidation(Class<T> commandType, int maximumSize, Duration timeToLive) {
+        requireNonNullArgument(commandType, "Command type cannot be null");
+        requireNonNullArgument(timeToLive, "Time to live cannot be null");
+        requirePositive(maximumSize, "Maximum cache size must be greater than 0");
+        validationCacheMap.put(commandType, new ResultCache<>(maximumSize, timeToLive.toNanos()));
         return this;
     }
 
+    /**
+     * Bounds every send of the given command type, validation and handling included
+     * Once the timeout passes the sending thread is interrupted and the send throws {@link MediateJTimeoutException},
+     * a handler that ignores interrupts keeps running until it returns. The interrupt is cleared before the send returns.
+     * Applies to send and sendAsync, not to sendAll. A timeout passed to {@link Mediate#send(Command, Duration)} takes precedence.
+     * Query types are rejected by {@link #build()}
+     *
+     * @param commandType -> Command class to bound
+     * @param timeout     -> Time budget of one send
+     */
+    public <T extends Command> MediateConfigurer deadline(Class<T> commandType, Duration timeout) {
+        requireNonNullArgument(commandType, "Command type cannot be null");
+        requireNonNullArgument(timeout, "Timeout cannot be null");
+        requirePositive(timeout.toNanos(), "Timeout must be greater than 0");
+        deadlineMap.put(commandType, timeout.toNanos());
+        return this;
+    }
 
     public Mediate build() {
+        requireNotQueryTypes(deadlineMap.keySet(), "Deadline");
+        requireNotQueryTypes(validationCacheMap.keySet(), "Validation cache");
         return new Mediate(this);
     }
 
+    // Queries always go through their query route, a deadline or validation cache of a query type would never apply
+    private static void requireNotQueryTypes(Set<Class<?>> types, String feature) {
+        for (Class<?> type : types) {
+            if (Query.class.isAssignableFrom(type)) {
+                throw new MediateJWrongParameterException(feature + " applies only to commands, " + type.getCanonicalName() + " is a query");
+            }
+        }
+    }
+
     void clear() {
         this.errorBuilder = null;
+        this.errorBuilderSupplier = null;
+        this.executor = null;
+        this.journalSupplier = null;
         this.commandBundleMap.clear();
+        this.queryRouteMap.clear();
+        this.resultCacheMap.clear();
+        this.deduplicationMap.clear();
+        this.validationCacheMap.clear();
+        this.deadlineMap.clear();
+        this.behaviors.clear();
+        this.eventHandlers.clear();
+        this.metricsExporters.clear();
+    }
+
+    // Validators already registered to run in parallel need an error builder that merges, whenever it is replaced
+    private void requireMergeIfParallel(ErrorBuilder errorBuilder) {
+        if (CompositeCommandValidator.anyParallel(commandBundleMap.values())) {
+            requireMerge(errorBuilder);
+        }
     }
 
     private void checkHandlerConflicts(ClassKeyData keyData) {
         if (HandlerConflictMode.THROW_EXCEPTION == handlerConflictMode) {
-            if (commandBundleMap.containsKey(keyData.classKey())) {
+            if (commandBundleMap.containsKey(keyData.commandType())) {
                 throw new MediateJConflictException("Handler for " + keyData.classKey() + " is already registered");
             }
         }
     }
 
-    private <T extends Command> void checkHandlerConflicts(ClassKeyData keyData, Map<String, CommandHandler<T>> commandHanderMap) {
+    private void checkHandlerConflicts(ClassKeyData keyData, Map<Class<?>, ?> commandHanderMap) {
         if (HandlerConflictMode.THROW_EXCEPTION == handlerConflictMode) {
-            if (commandHanderMap.containsKey(keyData.classKey())) {
+            if (commandHanderMap.containsKey(keyData.commandType())) {
                 throw new MediateJConflictException("Handler for " + keyData.classKey() + " is already registered");
             }
         }
     }
 
-    private <T extends Command, R extends ErrorBuilder> void scaleDownToCommandBundleMap(Map<String, CommandHandler<T>> tempCommandHandlerMap, Map<String, CommandValidator<T, R>> tempCommandValidatorMap) {
-        for (String key : tempCommandHandlerMap.keySet()) {
+    private <T extends Command, R extends ErrorBuilder> void scaleDownToCommandBundleMap(Map<Class<?>, CommandHandler<T>> tempCommandHandlerMap, Map<Class<?>, CommandValidator<T, R>> tempCommandValidatorMap) {
+        for (Class<?> key : tempCommandHandlerMap.keySet()) {
             CommandHandler<T> commandHandler = tempCommandHandlerMap.get(key);
             if (tempCommandValidatorMap.containsKey(key)) {
                 CommandValidator<T, R> commandValidator = tempCommandValidatorMap.get(key);
 
-                ClassKeyData handlerClassKeyData = new ClassKeyData(commandHandler);
-                ClassKeyData validatorClassKeyData = new ClassKeyData(commandValidator);
+                ClassKeyData handlerClassKeyData = ClassKeyData.of(commandHandler);
+                ClassKeyData validatorClassKeyData = ClassKeyData.of(commandValidator);
                 checkClassesKeysData(handlerClassKeyData, validatorClassKeyData, errorBuilder);
 
                 commandBundleMap.put(key, new CommandBundle<>(commandHandler, commandValidator));
@@ -144,18 +560,106 @@ public final class MediateConfigurer {
         }
     }
 
-    Map<String, CommandBundle<? extends Command, ? extends ErrorBuilder>> commandBundleMap() {
+    Map<Class<?>, CommandBundle<? extends Command, ? extends ErrorBuilder>> commandBundleMap() {
         return commandBundleMap;
     }
 
+    Map<Class<?>, QueryRoute<?, ?, ?>> queryRouteMap() {
+        return queryRouteMap;
+    }
+
+    Map<Class<?>, ResultCache<?, ?>> resultCacheMap() {
+        return resultCacheMap;
+    }
+
+    Map<Class<?>, ResultCache<Object, Boolean>> deduplicationMap() {
+        return deduplicationMap;
+    }
+
+    Map<Class<?>, ResultCache<Object, CommandBundle<?, ?>>> validationCacheMap() {
+        return validationCacheMap;
+    }
+
+    Map<Class<?>, Long> deadlineMap() {
+        return deadlineMap;
+    }
+
+    List<PipelineBehavior> behaviors() {
+        return behaviors;
+    }
+
+    List<EventHandler<?>> eventHandlers() {
+        return eventHandlers;
+    }
+
+    PublishStrategy publishStrategy() {
+        return publishStrategy;
+    }
+
+    List<MetricsExporter> metricsExporters() {
+        return metricsExporters;
+    }
+
+    boolean collectMetrics() {
+        return collectMetrics;
+    }
+
     ErrorBuilder errorBuilder() {
         return errorBuilder;
     }
 
+    Supplier<? extends ErrorBuilder> errorBuilderSupplier() {
+        return errorBuilderSupplier;
+    }
+
+    Supplier<CommandJournal> journalSupplier() {
+        return journalSupplier;
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
     ErrorBuilderInstanceMode errorBuilderInstanceMode() {
         return errorBuilderInstanceMode;
     }
 
+    DispatchMode dispatchMode() {
+        return dispatchMode;
+    }
+
+    int queueCapacity() {
+        return queueCapacity;
+    }
+
+    int queueWorkers() {
+        return queueWorkers;
+    }
+
+    BackpressurePolicy backpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    ValidationMode validationMode() {
+        return validationMode;
+    }
+
+    int partitionLanes() {
+        return partitionLanes;
+    }
+
+    HandlerResolutionMode handlerResolutionMode() {
+        return handlerResolutionMode;
+    }
+
+    int maxConcurrentSendsPerCommand() {
+        return maxConcurrentSendsPerCommand;
+    }
+
+    int errorBuilderPoolSize() {
+        return errorBuilderPoolSize;
+    }
+
     HandlerConflictMode handlerConflictMode() {
         return handlerConflictMode;
     }
@@ -1,7 +1,15 @@
 package com.github.saqie.mediatej.core;
 
+import com.github.saqie.mediatej.core.configuration.BackpressurePolicy;
+import com.github.saqie.mediatej.core.configuration.DispatchMode;
 import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
 import com.github.saqie.mediatej.core.configuration.HandlerConflictMode;
+import com.github.saqie.mediatej.core.configuration.HandlerResolutionMode;
+import com.github.saqie.mediatej.core.configuration.PublishStrategy;
+import com.github.saqie.mediatej.core.configuration.ValidationMode;
+import com.github.saqie.mediatej.core.exception.MediateJWrongParameterException;
+
+import java.nio.file.Path;
 
 import static com.github.saqie.mediatej.core.Check.*;
 
@@ -9,6 +17,18 @@ public final class MediateCoreConfigurer {
 
     private HandlerConflictMode handlerConflictMode;
     private ErrorBuilderInstanceMode errorBuilderInstanceMode;
+    private Integer errorBuilderPoolSize;
+    private DispatchMode dispatchMode;
+    private Integer queueCapacity;
+    private Integer queueWorkers;
+    private BackpressurePolicy backpressurePolicy;
+    private Integer partitionLanes;
+    private HandlerResolutionMode handlerResolutionMode;
+    private PublishStrategy publishStrategy;
+    private ValidationMode validationMode;
+    private Integer maxConcurrentSendsPerCommand;
+    private boolean collectMetrics;
+    private Path scanIndexFile;
 
     public MediateCoreConfigurer handlerConflictMode(HandlerConflictMode handlerConflictMode) {
         requireNonNullArgument(handlerConflictMode, "Handler conflict mode cannot be null");
@@ -22,7 +42,181 @@ public final class MediateCoreConfigurer {
         return this;
     }
 
+    /**
+     * Sets the number of error builders kept in the pool when {@link ErrorBuilderInstanceMode#POOLED} is used
+     * Defaults to twice the number of available processors
+     *
+     * @param errorBuilderPoolSize -> Maximum number of pooled error builders
+     */
+    public MediateCoreConfigurer errorBuilderPoolSize(int errorBuilderPoolSize) {
+        requirePositive(errorBuilderPoolSize, "Error builder pool size must be greater than 0");
+        this.errorBuilderPoolSize = errorBuilderPoolSize;
+        return this;
+    }
+
+    /**
+     * Sets where asynchronously sent commands are executed
+     * {@link DispatchMode#VIRTUAL_THREAD} runs every command on a new virtual thread and requires Java 21 or newer,
+     * {@link DispatchMode#QUEUED} puts commands into a bounded queue drained by a pool of worker threads,
+     * see {@link #queueCapacity(int)}, {@link #queueWorkers(int)} and {@link #backpressurePolicy(BackpressurePolicy)}
+     *
+     * @param dispatchMode -> Dispatch mode used by sendAsync
+     */
+    public MediateCoreConfigurer dispatchMode(DispatchMode dispatchMode) {
+        requireNonNullArgument(dispatchMode, "Dispatch mode cannot be null");
+        this.dispatchMode = dispatchMode;
+        return this;
+    }
+
+    /**
+     * Sets the number of commands the queue holds in {@link DispatchMode#QUEUED} mode
+     * Defaults to 1024, at most 2^30
+     *
+     * @param queueCapacity -> Maximum number of queued commands
+     */
+    public MediateCoreConfigurer queueCapacity(int queueCapacity) {
+        requirePositive(queueCapacity, "Queue capacity must be greater than 0");
+        requireAtMost(queueCapacity, DispatchQueue.MAX_CAPACITY, "Queue capacity must not be greater than " + DispatchQueue.MAX_CAPACITY);
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the number of worker threads draining the queue in {@link DispatchMode#QUEUED} mode
+     * Defaults to the number of available processors
+     *
+     * @param queueWorkers -> Number of worker threads
+     */
+    public MediateCoreConfigurer queueWorkers(int queueWorkers) {
+        requirePositive(queueWorkers, "Queue workers must be greater than 0");
+        this.queueWorkers = queueWorkers;
+        return this;
+    }
+
+    /**
+     * Sets what happens when a command is sent to a full queue in {@link DispatchMode#QUEUED} mode
+     * {@link BackpressurePolicy#BLOCK} waits for free space, {@link BackpressurePolicy#DROP} completes the returned future
+     * exceptionally with {@link java.util.concurrent.RejectedExecutionException}, {@link BackpressurePolicy#CALLER_RUNS}
+     * handles the command on the sending thread
+     *
+     * @param backpressurePolicy -> Backpressure policy, {@link BackpressurePolicy#BLOCK} by default
+     */
+    public MediateCoreConfigurer backpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        requireNonNullArgument(backpressurePolicy, "Backpressure policy cannot be null");
+        this.backpressurePolicy = backpressurePolicy;
+        return this;
+    }
+
+    /**
+     * Enables ordered execution of asynchronously sent {@link com.github.saqie.mediatej.api.PartitionedCommand}s
+     * Partition keys are hashed onto the given number of lanes (rounded up to a power of two), every lane runs its
+     * commands one at a time in send order on the executor chosen by the dispatch mode, different lanes run in parallel.
+     * Commands which are not partitioned are dispatched as usual.
+     * In {@link DispatchMode#QUEUED} mode commands waiting in lanes take space of the queue and are admitted with the
+     * backpressure policy, {@link BackpressurePolicy#CALLER_RUNS} waits like BLOCK so a lane is never overtaken.
+     * Cannot be combined with {@link #maxConcurrentSendsPerCommand(int)}, held commands would enter their lanes out of order.
+     *
+     * @param partitionLanes -> Number of lanes, e.g. a few times the number of available processors
+     */
+    public MediateCoreConfigurer partitionLanes(int partitionLanes) {
+        requirePositive(partitionLanes, "Partition lanes must be greater than 0");
+        requireAtMost(partitionLanes, PartitionLanes.MAX_LANES, "Partition lanes must not be greater than " + PartitionLanes.MAX_LANES);
+        this.partitionLanes = partitionLanes;
+        return this;
+    }
+
+    /**
+     * Sets how a sent command is matched with a registered handler
+     * {@link HandlerResolutionMode#HIERARCHY} falls back to the handler of the nearest superclass, then of the nearest
+     * interface, when no handler is registered for the command class itself, e.g. for subclasses and proxies.
+     * The match is resolved once per command class, so later sends cost the same as exact matches.
+     *
+     * @param handlerResolutionMode -> Handler resolution mode, {@link HandlerResolutionMode#EXACT} by default
+     */
+    public MediateCoreConfigurer handlerResolutionMode(HandlerResolutionMode handlerResolutionMode) {
+        requireNonNullArgument(handlerResolutionMode, "Handler resolution mode cannot be null");
+        this.handlerResolutionMode = handlerResolutionMode;
+        return this;
+    }
+
+    /**
+     * Sets whether validation stops at the first error
+     * {@link ValidationMode#FAIL_FAST} checks {@link com.github.saqie.mediatej.api.ErrorBuilder#hasErrors()} after every
+     * validator, so a single send skips the remaining validators registered sequentially for its command and sendAll
+     * skips the remaining commands of the group. Errors are built at once, so the registered error builder has to override hasErrors().
+     * Validators running in parallel are always run to the end.
+     *
+     * @param validationMode -> Validation mode, {@link ValidationMode#COLLECT_ALL} by default
+     */
+    public MediateCoreConfigurer validationMode(ValidationMode validationMode) {
+        requireNonNullArgument(validationMode, "Validation mode cannot be null");
+        this.validationMode = validationMode;
+        return this;
+    }
+
+    /**
+     * Sets how published events are passed to their handlers
+     * {@link PublishStrategy#SEQUENTIAL} calls handlers one by one on the publishing thread,
+     * {@link PublishStrategy#PARALLEL} fans handlers out on the registered executor if it is a ForkJoinPool
+     * (ForkJoinPool.commonPool() otherwise) and waits for all of them,
+     * {@link PublishStrategy#FIRE_AND_FORGET} submits one task calling every handler to the executor used by sendAsync and returns at once,
+     * if the executor rejects it no handler gets the event and publish throws RejectedExecutionException.
+     * In SEQUENTIAL and PARALLEL strategies every handler is called even if another one fails,
+     * the first failure is rethrown with the others suppressed.
+     *
+     * @param publishStrategy -> Publish strategy, {@link PublishStrategy#SEQUENTIAL} by default
+     */
+    public MediateCoreConfigurer publishStrategy(PublishStrategy publishStrategy) {
+        requireNonNullArgument(publishStrategy, "Publish strategy cannot be null");
+        this.publishStrategy = publishStrategy;
+        return this;
+    }
+
+    /**
+     * Limits how many asynchronously sent commands of one type are handled at the same time,
+     * commands over the limit wait in submission order without occupying an executor thread
+     * In {@link HandlerResolutionMode#HIERARCHY} mode commands routed to the same handler share one limit
+     * Cannot be combined with {@link #partitionLanes(int)}
+     *
+     * @param maxConcurrentSendsPerCommand -> Maximum number of concurrently handled commands per command type
+     */
+    public MediateCoreConfigurer maxConcurrentSendsPerCommand(int maxConcurrentSendsPerCommand) {
+        requirePositive(maxConcurrentSendsPerCommand, "Max concurrent sends per command must be greater than 0");
+        this.maxConcurrentSendsPerCommand = maxConcurrentSendsPerCommand;
+        return this;
+    }
+
+    /**
+     * Enables per command type counters and validation and handling latency histograms
+     * Recorded metrics are available through {@link Mediate#metrics()}
+     *
+     * @param collectMetrics -> Whether metrics are recorded, disabled by default
+     */
+    public MediateCoreConfigurer collectMetrics(boolean collectMetrics) {
+        this.collectMetrics = collectMetrics;
+        return this;
+    }
+
+    /**
+     * Sets where {@link MediateConfigurer#scan(String...)} keeps its index of found handlers and validators, without it every scan
+     * walks the class path. Use a directory only the application can write to, classes listed in the index are instantiated.
+     * Listed classes outside the scanned packages or that are not handlers or validators make the index invalid, the packages are scanned again.
+     * A later startup still checks the class path: one file status per jar containing a scanned package, and one per
+     * entry below the scanned packages in class path directories. It loads only the listed classes, which it has to
+     * instantiate anyway, instead of every class in the scanned packages.
+     *
+     * @param scanIndexFile -> Index file, created on the first scan and reused while the class path stays the same
+     */
+    public MediateCoreConfigurer scanIndexFile(Path scanIndexFile) {
+        requireNonNullArgument(scanIndexFile, "Scan index file cannot be null");
+        this.scanIndexFile = scanIndexFile;
+        return this;
+    }
+
     public MediateConfigurer build() {
+        if (partitionLanes() > 0 && maxConcurrentSendsPerCommand() > 0) {
+            throw new MediateJWrongParameterException("Partition lanes cannot be combined with max concurrent sends per command");
+        }
         return new MediateConfigurer(this);
     }
 
@@ -34,5 +228,53 @@ public final class MediateCoreConfigurer {
         return errorBuilderInstanceMode == null ? ErrorBuilderInstanceMode.PER_SEND : errorBuilderInstanceMode;
     }
 
+    DispatchMode dispatchMode() {
+        return dispatchMode == null ? DispatchMode.EXECUTOR : dispatchMode;
+    }
+
+    int queueCapacity() {
+        return queueCapacity == null ? 1024 : queueCapacity;
+    }
+
+    int queueWorkers() {
+        return queueWorkers == null ? Runtime.getRuntime().availableProcessors() : queueWorkers;
+    }
+
+    BackpressurePolicy backpressurePolicy() {
+        return backpressurePolicy == null ? BackpressurePolicy.BLOCK : backpressurePolicy;
+    }
+
+    ValidationMode validationMode() {
+        return validationMode == null ? ValidationMode.COLLECT_ALL : validationMode;
+    }
+
+    int partitionLanes() {
+        return partitionLanes == null ? 0 : partitionLanes;
+    }
+
+    HandlerResolutionMode handlerResolutionMode() {
+        return handlerResolutionMode == null ? HandlerResolutionMode.EXACT : handlerResolutionMode;
+    }
+
+    PublishStrategy publishStrategy() {
+        return publishStrategy == null ? PublishStrategy.SEQUENTIAL : publishStrategy;
+    }
+
+    int maxConcurrentSendsPerCommand() {
+        return maxConcurrentSendsPerCommand == null ? 0 : maxConcurrentSendsPerCommand;
+    }
+
+    boolean collectMetrics() {
+        return collectMetrics;
+    }
+
+    Path scanIndexFile() {
+        return scanIndexFile;
+    }
+
+    int errorBuilderPoolSize() {
+        return errorBuilderPoolSize == null ? Runtime.getRuntime().availableProcessors() * 2 : errorBuilderPoolSize;
+    }
+
 
 }
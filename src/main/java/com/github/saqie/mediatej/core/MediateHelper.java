@@ -11,28 +11,36 @@ import java.util.Map;
 final class MediateHelper {
 
     public static <T extends Command, R extends ErrorBuilder> ClassKeyData getKeyFromClass(CommandValidator<T, R> commandValidator) {
-        return new ClassKeyData(commandValidator);
+        return ClassKeyData.of(commandValidator);
     }
 
     public static <T extends Command> ClassKeyData getKeyFromClass(CommandHandler<T> commandHandler) {
-        return new ClassKeyData(commandHandler);
+        return ClassKeyData.of(commandHandler);
+    }
+
+    public static <Q extends Query<R>, R> ClassKeyData getKeyFromQueryHandler(QueryHandler<Q, R> queryHandler) {
+        return ClassKeyData.ofQueryHandler(queryHandler);
+    }
+
+    public static <E extends Event> ClassKeyData getKeyFromEventHandler(EventHandler<E> eventHandler) {
+        return ClassKeyData.ofEventHandler(eventHandler);
     }
 
 
-    public static <T extends Command, R extends ErrorBuilder> Map<String, CommandValidator<T, R>> resolveValidators(List<CommandValidator<T, R>> commandValidators) {
-        Map<String, CommandValidator<T, R>> tempCommandValidatorMap = new HashMap<>();
+    public static <T extends Command, R extends ErrorBuilder> Map<Class<?>, CommandValidator<T, R>> resolveValidators(List<CommandValidator<T, R>> commandValidators) {
+        Map<Class<?>, CommandValidator<T, R>> tempCommandValidatorMap = new HashMap<>();
         for (CommandValidator<T, R> commandValidator : commandValidators) {
             ClassKeyData keyData = MediateHelper.getKeyFromClass(commandValidator);
-            tempCommandValidatorMap.put(keyData.classKey(), commandValidator);
+            tempCommandValidatorMap.put(keyData.commandType(), commandValidator);
         }
         return tempCommandValidatorMap;
     }
 
-    public static <T extends Command> Map<String, CommandHandler<T>> resolveHandlers(List<CommandHandler<T>> commandHandlers) {
-        Map<String, CommandHandler<T>> tempCommandHandlerMap = new HashMap<>();
+    public static <T extends Command> Map<Class<?>, CommandHandler<T>> resolveHandlers(List<CommandHandler<T>> commandHandlers) {
+        Map<Class<?>, CommandHandler<T>> tempCommandHandlerMap = new HashMap<>();
         for (CommandHandler<T> commandHandler : commandHandlers) {
             ClassKeyData keyData = MediateHelper.getKeyFromClass(commandHandler);
-            tempCommandHandlerMap.put(keyData.classKey(), commandHandler);
+            tempCommandHandlerMap.put(keyData.commandType(), commandHandler);
         }
         return tempCommandHandlerMap;
     }
@@ -0,0 +1,140 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.*;
+import com.github.saqie.mediatej.core.configuration.HandlerConflictMode;
+import com.github.saqie.mediatej.core.exception.MediateJConflictException;
+
+import static com.github.saqie.mediatej.core.Check.*;
+
+/**
+ * Registers, replaces and unregisters command and query handlers of a running {@link Mediate}, see {@link Mediate#registry()}
+ * Every change compiles a new immutable dispatch table and publishes it with a single volatile write. Sends never take a lock,
+ * they see the table either before or after a change. Changes are applied one at a time.
+ * Pipeline behaviors, result caches, deduplication and metrics configured in MediateConfigurer apply to handlers registered here as well.
+ * Replacing a handler keeps the metrics of its type, cached validations of a replaced validator are dropped.
+ */
+public final class MediateRegistry {
+
+    private final ErrorBuilder errorBuilder;
+    private final HandlerConflictMode handlerConflictMode;
+    private volatile BundleResolver bundleResolver;
+
+    MediateRegistry(MediateConfigurer configurer) {
+        this.errorBuilder = configurer.errorBuilder();
+        this.handlerConflictMode = configurer.handlerConflictMode();
+        this.bundleResolver = new BundleResolver(configurer);
+    }
+
+    /**
+     * Registers command handler, follows the handler conflict mode configured in MediateCoreConfigurer
+     *
+     * @param commandHandler -> Handler of the command type
+     */
+    public <T extends Command> MediateRegistry register(CommandHandler<T> commandHandler) {
+        return register(commandHandler, null);
+    }
+
+    /**
+     * Registers command handler with its validator, follows the handler conflict mode configured in MediateCoreConfigurer
+     *
+     * @param commandHandler   -> Handler of the command type
+     * @param commandValidator -> Validator of the command type, requires error builder registered in MediateConfigurer
+     */
+    public synchronized <T extends Command, R extends ErrorBuilder> MediateRegistry register(CommandHandler<T> commandHandler, CommandValidator<T, R> commandValidator) {
+        Class<?> commandType = commandType(commandHandler, commandValidator);
+        checkHandlerConflicts(commandType);
+        bundleResolver = bundleResolver.withCommandBundle(commandType, new CommandBundle<>(commandHandler, commandValidator));
+        bundleResolver.clearValidationCache(commandType);
+        return this;
+    }
+
+    /**
+     * Replaces the handler of the command type in one step, regardless of the handler conflict mode
+     * Sends never find the command type without a handler, as they could between unregister and register
+     *
+     * @param commandHandler -> Handler of the command type
+     */
+    public <T extends Command> MediateRegistry replace(CommandHandler<T> commandHandler) {
+        return replace(commandHandler, null);
+    }
+
+    /**
+     * Replaces the handler and validator of the command type in one step, regardless of the handler conflict mode
+     *
+     * @param commandHandler   -> Handler of the command type
+     * @param commandValidator -> Validator of the command type, requires error builder registered in MediateConfigurer
+     */
+    public synchronized <T extends Command, R extends ErrorBuilder> MediateRegistry replace(CommandHandler<T> commandHandler, CommandValidator<T, R> commandValidator) {
+        Class<?> commandType = commandType(commandHandler, commandValidator);
+        bundleResolver = bundleResolver.withCommandBundle(commandType, new CommandBundle<>(commandHandler, commandValidator));
+        bundleResolver.clearValidationCache(commandType);
+        return this;
+    }
+
+    /**
+     * Registers query handler, follows the handler conflict mode configured in MediateCoreConfigurer
+     *
+     * @param queryHandler -> Handler of the query type
+     */
+    public synchronized <Q extends Query<R>, R> MediateRegistry registerQueryHandler(QueryHandler<Q, R> queryHandler) {
+        requireNonNullArgument(queryHandler, "Query handler cannot be null");
+        Class<?> queryType = ClassKeyData.ofQueryHandler(queryHandler).commandType();
+        checkHandlerConflicts(queryType);
+        bundleResolver = bundleResolver.withQueryRoute(queryType, new QueryRoute<>(queryHandler, null));
+        return this;
+    }
+
+    /**
+     * Replaces the handler of the query type in one step, regardless of the handler conflict mode
+     *
+     * @param queryHandler -> Handler of the query type
+     */
+    public synchronized <Q extends Query<R>, R> MediateRegistry replaceQueryHandler(QueryHandler<Q, R> queryHandler) {
+        requireNonNullArgument(queryHandler, "Query handler cannot be null");
+        Class<?> queryType = ClassKeyData.ofQueryHandler(queryHandler).commandType();
+        bundleResolver = bundleResolver.withQueryRoute(queryType, new QueryRoute<>(queryHandler, null));
+        return this;
+    }
+
+    /**
+     * Removes the handler of the given command or query type, later sends of the type throw MediateJMissingHandlerException
+     * Sends already past the lookup finish with the removed handler
+     *
+     * @param type -> Command or query class
+     */
+    public synchronized MediateRegistry unregister(Class<?> type) {
+        requireNonNullArgument(type, "Type cannot be null");
+        if (bundleResolver.contains(type)) {
+            bundleResolver = bundleResolver.without(type);
+        }
+        return this;
+    }
+
+    /**
+     * Returns true if a handler is registered for exactly the given command or query type
+     *
+     * @param type -> Command or query class
+     */
+    public boolean isRegistered(Class<?> type) {
+        return bundleResolver.contains(type);
+    }
+
+    BundleResolver bundleResolver() {
+        return bundleResolver;
+    }
+
+    private <T extends Command, R extends ErrorBuilder> Class<?> commandType(CommandHandler<T> commandHandler, CommandValidator<T, R> commandValidator) {
+        requireNonNullArgument(commandHandler, "Command handler cannot be null");
+        ClassKeyData handlerClassKeyData = ClassKeyData.of(commandHandler);
+        if (commandValidator != null) {
+            checkClassesKeysData(handlerClassKeyData, ClassKeyData.of(commandValidator), errorBuilder);
+        }
+        return handlerClassKeyData.commandType();
+    }
+
+    private void checkHandlerConflicts(Class<?> type) {
+        if (HandlerConflictMode.THROW_EXCEPTION == handlerConflictMode && bundleResolver.contains(type)) {
+            throw new MediateJConflictException("Handler for " + type.getCanonicalName() + " is already registered");
+        }
+    }
+}
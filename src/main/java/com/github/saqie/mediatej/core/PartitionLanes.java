@@ -0,0 +1,30 @@
+package com.github.saqie.mediatej.core;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Fixed set of serial lanes over one executor, a partition key is always hashed onto the same lane
+ */
+final class PartitionLanes {
+
+    // Largest lane count whose power of two still fits in an int
+    static final int MAX_LANES = 1 << 30;
+
+    private final SerialExecutor[] lanes;
+    private final int mask;
+
+    PartitionLanes(int laneCount, Executor executor, LaneAdmission admission) {
+        int size = Math.max(Integer.highestOneBit(laneCount - 1) << 1, 1);
+        this.lanes = new SerialExecutor[size];
+        for (int i = 0; i < size; i++) {
+            lanes[i] = new SerialExecutor(executor, admission);
+        }
+        this.mask = size - 1;
+    }
+
+    Executor lane(Object partitionKey) {
+        int hash = Objects.hashCode(partitionKey);
+        return lanes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.*;
+
+/**
+ * Query handler with its optional validator and result cache, resolved by the query class
+ */
+final class QueryRoute<Q extends Query<R>, R, B extends ErrorBuilder> {
+
+    private final QueryHandler<Q, R> queryHandler;
+    private final CommandValidator<Q, B> queryValidator;
+    private final ResultCache<Q, R> resultCache;
+    private final CommandMetrics metrics;
+
+    QueryRoute(QueryHandler<Q, R> queryHandler, CommandValidator<Q, B> queryValidator) {
+        this(queryHandler, queryValidator, null, null);
+    }
+
+    private QueryRoute(QueryHandler<Q, R> queryHandler, CommandValidator<Q, B> queryValidator, ResultCache<Q, R> resultCache, CommandMetrics metrics) {
+        this.queryHandler = queryHandler;
+        this.queryValidator = queryValidator;
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+    }
+
+    QueryRoute<Q, R, B> withResultCache(ResultCache<Q, R> resultCache) {
+        return new QueryRoute<>(queryHandler, queryValidator, resultCache, metrics);
+    }
+
+    QueryRoute<Q, R, B> withMetrics(CommandMetrics metrics) {
+        return new QueryRoute<>(queryHandler, queryValidator, resultCache, metrics);
+    }
+
+    QueryHandler<Q, R> queryHandler() {
+        return queryHandler;
+    }
+
+    CommandValidator<Q, B> queryValidator() {
+        return queryValidator;
+    }
+
+    ResultCache<Q, R> resultCache() {
+        return resultCache;
+    }
+
+    CommandMetrics metrics() {
+        return metrics;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.github.saqie.mediatej.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent LRU cache with optional time to live.
+ * Keys are spread over independently locked segments, so threads only contend when they hit the same segment.
+ */
+final class ResultCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long timeToLiveNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    ResultCache(int maximumSize, long timeToLiveNanos) {
+        int segmentCount = Math.min(MAX_SEGMENTS, maximumSize);
+        int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+        this.timeToLiveNanos = timeToLiveNanos;
+    }
+
+    /**
+     * Returns cached value or null if the key is missing or expired, the entry value itself may be null
+     */
+    CachedValue<V> get(K key) {
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            CachedValue<V> entry = segment.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                segment.remove(key);
+                entry = null;
+            }
+            (entry == null ? misses : hits).increment();
+            return entry;
+        }
+    }
+
+    void put(K key, V value) {
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, new CachedValue<>(value, expiresAt()));
+        }
+    }
+
+    /**
+     * Stores the value unless a live entry for the key exists, counted as a miss when stored and as a hit otherwise
+     *
+     * @return true if the value was stored
+     */
+    boolean putIfAbsent(K key, V value) {
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            CachedValue<V> entry = segment.get(key);
+            if (entry != null && !entry.isExpired(System.nanoTime())) {
+                hits.increment();
+                return false;
+            }
+            segment.put(key, new CachedValue<>(value, expiresAt()));
+            misses.increment();
+            return true;
+        }
+    }
+
+    void remove(K key) {
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    private long expiresAt() {
+        return timeToLiveNanos > 0 ? System.nanoTime() + timeToLiveNanos : 0;
+    }
+
+    private Segment<K, V> segment(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    static final class CachedValue<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private CachedValue(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        V value() {
+            return value;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt >= 0;
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, CachedValue<V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+
+}
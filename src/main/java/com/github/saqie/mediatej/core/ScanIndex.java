@@ -0,0 +1,121 @@
+package com.github.saqie.mediatej.core;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * On-disk result of a package scan, read with a memory map so later startups load the listed classes instead of rescanning
+ * Layout: magic, version, class path fingerprint, scanned packages and handler class names as length prefixed UTF-8 strings
+ * A missing, stale or unreadable index is treated as absent and the packages are scanned again
+ */
+final class ScanIndex {
+
+    private static final int MAGIC = 0x4D4A5349;
+    private static final int VERSION = 1;
+
+    private ScanIndex() {
+    }
+
+    /**
+     * @return indexed class names, null if the index does not exist or was written for other packages or another class path
+     */
+    static List<String> read(Path file, long fingerprint, List<String> packages) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != fingerprint) {
+                return null;
+            }
+            if (!readStrings(buffer).equals(packages)) {
+                return null;
+            }
+            return readStrings(buffer);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index to a temporary file first and moves it in place, so a concurrently starting application never
+     * reads a partial index. A failed write only costs a rescan on the next startup and is ignored.
+     */
+    static void write(Path file, long fingerprint, List<String> packages, List<String> classNames) {
+        List<byte[]> encodedPackages = encode(packages);
+        List<byte[]> encodedClassNames = encode(classNames);
+        ByteBuffer buffer = ByteBuffer.allocate(16 + size(encodedPackages) + size(encodedClassNames));
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(fingerprint);
+        writeStrings(buffer, encodedPackages);
+        writeStrings(buffer, encodedClassNames);
+        buffer.flip();
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException | SecurityException ignored) {
+            // The packages are scanned again on the next startup
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative string count");
+        }
+        List<String> strings = new ArrayList<>(Math.min(count, buffer.remaining() / 4));
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Wrong string length");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            strings.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    private static void writeStrings(ByteBuffer buffer, List<byte[]> strings) {
+        buffer.putInt(strings.size());
+        for (byte[] string : strings) {
+            buffer.putInt(string.length).put(string);
+        }
+    }
+
+    private static List<byte[]> encode(List<String> strings) {
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            encoded.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+        return encoded;
+    }
+
+    private static int size(List<byte[]> strings) {
+        int size = 4;
+        for (byte[] string : strings) {
+            size += 4 + string.length;
+        }
+        return size;
+    }
+}
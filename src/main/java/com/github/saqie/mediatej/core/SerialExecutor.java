@@ -0,0 +1,100 @@
+package com.github.saqie.mediatej.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mailbox running its tasks one at a time, in submission order, on a shared executor
+ * At most one drain is scheduled at a time, it runs a batch of tasks and reschedules itself while tasks remain,
+ * so a busy lane gives other lanes a turn on the shared threads.
+ * Waiting tasks take space of the lane admission, a task leaves it right before it runs.
+ */
+final class SerialExecutor implements Executor {
+
+    private static final int BATCH_SIZE = 64;
+
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Executor executor;
+    private final LaneAdmission admission;
+
+    SerialExecutor(Executor executor) {
+        this(executor, LaneAdmission.UNBOUNDED);
+    }
+
+    SerialExecutor(Executor executor, LaneAdmission admission) {
+        this.executor = executor;
+        this.admission = admission;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        admission.admit();
+        mailbox.add(task);
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Tasks queued by other threads after ours rely on this drain, they run here instead of being stranded
+            boolean rejected = mailbox.remove(task);
+            if (rejected) {
+                admission.leave();
+            }
+            runRemaining();
+            if (rejected) {
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable task = mailbox.poll();
+                if (task == null) {
+                    break;
+                }
+                admission.leave();
+                run(task);
+            }
+        } finally {
+            scheduled.set(false);
+            // A task queued between the last poll and the reset above found the drain still scheduled
+            if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    runRemaining();
+                }
+            }
+        }
+    }
+
+    private void runRemaining() {
+        Runnable task;
+        while ((task = mailbox.poll()) != null) {
+            admission.leave();
+            run(task);
+        }
+        scheduled.set(false);
+    }
+
+    // Reports every failure of a task, including errors, so one failing command never stops its lane
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            Thread thread = Thread.currentThread();
+            try {
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            } catch (Throwable ignored) {
+                // A failing handler must not stop the lane either
+            }
+        }
+    }
+}
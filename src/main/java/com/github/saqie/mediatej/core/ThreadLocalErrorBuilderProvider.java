@@ -0,0 +1,50 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.ErrorBuilder;
+
+import java.util.function.Supplier;
+
+/**
+ * One error builder per thread, reused by later sends from that thread.
+ * A validation started while the thread's builder is still in use, e.g. by a validator that sends another command,
+ * gets a fresh instance, so the outer validation neither loses its errors nor reports the nested ones.
+ */
+final class ThreadLocalErrorBuilderProvider implements ErrorBuilderProvider {
+
+    private final Supplier<? extends ErrorBuilder> errorBuilderSupplier;
+    private final ThreadLocal<Slot> slots;
+
+    ThreadLocalErrorBuilderProvider(Supplier<? extends ErrorBuilder> errorBuilderSupplier) {
+        this.errorBuilderSupplier = errorBuilderSupplier;
+        this.slots = ThreadLocal.withInitial(() -> new Slot(errorBuilderSupplier.get()));
+    }
+
+    @Override
+    public ErrorBuilder acquire() {
+        Slot slot = slots.get();
+        if (slot.inUse) {
+            return errorBuilderSupplier.get();
+        }
+        slot.inUse = true;
+        slot.errorBuilder.reset();
+        return slot.errorBuilder;
+    }
+
+    @Override
+    public void release(ErrorBuilder errorBuilder) {
+        Slot slot = slots.get();
+        if (slot.errorBuilder == errorBuilder) {
+            slot.inUse = false;
+        }
+    }
+
+    private static final class Slot {
+
+        private final ErrorBuilder errorBuilder;
+        private boolean inUse;
+
+        private Slot(ErrorBuilder errorBuilder) {
+            this.errorBuilder = errorBuilder;
+        }
+    }
+}
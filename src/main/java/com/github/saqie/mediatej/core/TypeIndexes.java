@@ -0,0 +1,68 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.index.MediateTypeIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.BiFunction;
+
+/**
+ * Type indexes shared by every configurer, an index only speeds up type resolution so results never depend on
+ * which configurer registered it
+ */
+final class TypeIndexes {
+
+    private static volatile MediateTypeIndex[] indexes = load();
+
+    private TypeIndexes() {
+    }
+
+    private static MediateTypeIndex[] load() {
+        List<MediateTypeIndex> loaded = new ArrayList<>();
+        ServiceLoader.load(MediateTypeIndex.class).forEach(loaded::add);
+        return loaded.toArray(new MediateTypeIndex[0]);
+    }
+
+    static synchronized void register(MediateTypeIndex index) {
+        for (MediateTypeIndex registered : indexes) {
+            if (registered.getClass() == index.getClass()) {
+                return;
+            }
+        }
+        MediateTypeIndex[] extended = Arrays.copyOf(indexes, indexes.length + 1);
+        extended[indexes.length] = index;
+        indexes = extended;
+    }
+
+    static Class<?> commandType(Class<?> handlerType) {
+        return find(handlerType, MediateTypeIndex::commandType);
+    }
+
+    static Class<?> queryType(Class<?> queryHandlerType) {
+        return find(queryHandlerType, MediateTypeIndex::queryType);
+    }
+
+    static Class<?> eventType(Class<?> eventHandlerType) {
+        return find(eventHandlerType, MediateTypeIndex::eventType);
+    }
+
+    static Class<?> validatedType(Class<?> validatorType) {
+        return find(validatorType, MediateTypeIndex::validatedType);
+    }
+
+    static Class<?> errorBuilderType(Class<?> validatorType) {
+        return find(validatorType, MediateTypeIndex::errorBuilderType);
+    }
+
+    private static Class<?> find(Class<?> type, BiFunction<MediateTypeIndex, Class<?>, Class<?>> column) {
+        for (MediateTypeIndex index : indexes) {
+            Class<?> resolvedType = column.apply(index, type);
+            if (resolvedType != null) {
+                return resolvedType;
+            }
+        }
+        return null;
+    }
+}
@@ -2,43 +2,227 @@ package com.github.saqie.mediatej.core;
 
 import com.github.saqie.mediatej.api.*;
 import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
-import com.github.saqie.mediatej.core.exception.MediateJConflictException;
+import com.github.saqie.mediatej.core.configuration.ValidationMode;
 
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+import static com.github.saqie.mediatej.core.Check.requireHasErrors;
 
 @SuppressWarnings("unchecked")
 final class ValidatorResolver {
 
-    private final ErrorBuilder errorBuilder;
-    private final ErrorBuilderInstanceMode instanceMode;
+    private final ErrorBuilderProvider errorBuilderProvider;
+    private final boolean failFast;
+    private final ForkJoinPool forkJoinPool;
+    // Fresh instances for validators running in parallel, resolved only when any validators run in parallel
+    // so builders without a no args constructor keep working otherwise, null if none do
+    private final Supplier<? extends ErrorBuilder> parallelErrorBuilderSupplier;
 
     public ValidatorResolver(MediateConfigurer configurer) {
-        this.errorBuilder = configurer.errorBuilder();
-        this.instanceMode = configurer.errorBuilderInstanceMode();
+        this.errorBuilderProvider = resolveErrorBuilderProvider(configurer);
+        this.failFast = ValidationMode.FAIL_FAST == configurer.validationMode();
+        if (failFast && configurer.errorBuilder() != null) {
+            requireHasErrors(configurer.errorBuilder());
+        }
+        this.parallelErrorBuilderSupplier = CompositeCommandValidator.anyParallel(configurer.commandBundleMap().values())
+                ? resolveParallelErrorBuilderSupplier(configurer)
+                : null;
+        this.forkJoinPool = configurer.executor() instanceof ForkJoinPool
+                ? (ForkJoinPool) configurer.executor()
+                : ForkJoinPool.commonPool();
+    }
+
+    private static Supplier<? extends ErrorBuilder> resolveParallelErrorBuilderSupplier(MediateConfigurer configurer) {
+        return configurer.errorBuilderSupplier() != null
+                ? configurer.errorBuilderSupplier()
+                : ErrorBuilderFactory.noArgsConstructor(configurer.errorBuilder());
+    }
+
+    private static ErrorBuilderProvider resolveErrorBuilderProvider(MediateConfigurer configurer) {
+        ErrorBuilder errorBuilder = configurer.errorBuilder();
+        ErrorBuilderInstanceMode instanceMode = configurer.errorBuilderInstanceMode();
+        if (ErrorBuilderInstanceMode.ONE == instanceMode || errorBuilder == null) {
+            return () -> errorBuilder;
+        }
+        Supplier<? extends ErrorBuilder> errorBuilderSupplier = configurer.errorBuilderSupplier() != null
+                ? configurer.errorBuilderSupplier()
+                : ErrorBuilderFactory.noArgsConstructor(errorBuilder);
+        switch (instanceMode) {
+            case THREAD_LOCAL:
+                return new ThreadLocalErrorBuilderProvider(errorBuilderSupplier);
+            case POOLED:
+                return new ErrorBuilderPool(errorBuilderSupplier, configurer.errorBuilderPoolSize());
+            default:
+                return errorBuilderSupplier::get;
+        }
     }
 
     <T extends Command, R extends ErrorBuilder> void run(T command, CommandBundle<T, R> commandBundle) {
-        commandBundle.commandValidator().ifPresent((validator) -> {
-            ErrorBuilder builder = getErrorBuilderInstance();
+        // Plain branch instead of ifPresent, a capturing lambda would be allocated on every send
+        Optional<CommandValidator<T, R>> validator = commandBundle.commandValidator();
+        if (validator.isPresent()) {
+            run(command, validator.get());
+        }
+    }
+
+    <T extends Command, R extends ErrorBuilder> void run(T command, CommandValidator<T, R> validator) {
+        if (validator instanceof CompositeCommandValidator) {
+            run(command, (CompositeCommandValidator<T, R>) validator);
+            return;
+        }
+        if (accepts(validator, command)) {
+            return;
+        }
+        ErrorBuilder builder = errorBuilderProvider.acquire();
+        try {
             validator.validate(command, (R) builder);
-            builder.build();
-        });
+            if (builder.hasErrors()) {
+                builder.build();
+            }
+        } finally {
+            errorBuilderProvider.release(builder);
+        }
     }
 
-    private ErrorBuilder getErrorBuilderInstance() {
-        if (ErrorBuilderInstanceMode.PER_SEND == instanceMode) {
-            return getInstance();
+    private <T extends Command, R extends ErrorBuilder> void run(T command, CompositeCommandValidator<T, R> composite) {
+        if (composite.parallel()) {
+            runParallel(command, composite.validators());
+            return;
+        }
+        ErrorBuilder builder = null;
+        try {
+            for (CommandValidator<T, R> validator : composite.validators()) {
+                if (accepts(validator, command)) {
+                    continue;
+                }
+                if (builder == null) {
+                    builder = errorBuilderProvider.acquire();
+                }
+                validator.validate(command, (R) builder);
+                if (failFast && builder.hasErrors()) {
+                    break;
+                }
+            }
+            if (builder != null && builder.hasErrors()) {
+                builder.build();
+            }
+        } finally {
+            if (builder != null) {
+                errorBuilderProvider.release(builder);
+            }
+        }
+    }
+
+    // The first validator runs on the calling thread, the others on the fork join pool with their own error builders
+    private <T extends Command, R extends ErrorBuilder> void runParallel(T command, CommandValidator<T, R>[] validators) {
+        List<CommandValidator<T, R>> pending = new ArrayList<>(validators.length);
+        for (CommandValidator<T, R> validator : validators) {
+            if (!accepts(validator, command)) {
+                pending.add(validator);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<ForkJoinTask<ErrorBuilder>> forked = new ArrayList<>(pending.size() - 1);
+        ErrorBuilder builder = null;
+        try {
+            for (int i = 1; i < pending.size(); i++) {
+                CommandValidator<T, R> validator = pending.get(i);
+                forked.add(forkJoinPool.submit(() -> {
+                    ErrorBuilder validatorBuilder = parallelErrorBuilderSupplier.get();
+                    validator.validate(command, (R) validatorBuilder);
+                    return validatorBuilder;
+                }));
+            }
+            builder = errorBuilderProvider.acquire();
+            pending.get(0).validate(command, (R) builder);
+            for (ForkJoinTask<ErrorBuilder> task : forked) {
+                ErrorBuilder validatorBuilder = await(task);
+                if (validatorBuilder.hasErrors()) {
+                    ((MergeableErrorBuilder) builder).merge(validatorBuilder);
+                }
+            }
+            if (builder.hasErrors()) {
+                builder.build();
+            }
+        } finally {
+            // After a validator threw or the wait was interrupted nobody joins the other tasks, those not started yet never run
+            for (ForkJoinTask<ErrorBuilder> task : forked) {
+                task.cancel(false);
+            }
+            if (builder != null) {
+                errorBuilderProvider.release(builder);
+            }
         }
-        return errorBuilder;
     }
 
-    private ErrorBuilder getInstance() {
+    // Waits interruptibly, so the deadline of the send also stops it waiting for validators on the pool
+    private static ErrorBuilder await(ForkJoinTask<ErrorBuilder> task) {
         try {
-            return errorBuilder.getClass().getDeclaredConstructor().newInstance();
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
-                 NoSuchMethodException e) {
-            throw new MediateJConflictException("Cannot create instance for class " + errorBuilder.getClass().getCanonicalName()
-                    + " make sure that class have no args constructor", e);
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parallel validators", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // A pure validator accepting the command needs no error builder at all
+    private static <T extends Command, R extends ErrorBuilder> boolean accepts(CommandValidator<T, R> validator, T command) {
+        return validator instanceof PureCommandValidator && ((PureCommandValidator<T, R>) validator).isValid(command);
+    }
+
+    /**
+     * Validates commands of one type with one error builder, validators registered together run in registration order
+     */
+    <T extends Command, R extends ErrorBuilder> void runAll(List<T> commands, CommandBundle<T, R> commandBundle) {
+        Optional<CommandValidator<T, R>> validator = commandBundle.commandValidator();
+        if (validator.isPresent()) {
+            CommandValidator<T, R>[] validators = validator.get() instanceof CompositeCommandValidator
+                    ? ((CompositeCommandValidator<T, R>) validator.get()).validators()
+                    : (CommandValidator<T, R>[]) new CommandValidator<?, ?>[]{validator.get()};
+            ErrorBuilder builder = null;
+            try {
+                for (T command : commands) {
+                    for (CommandValidator<T, R> commandValidator : validators) {
+                        if (accepts(commandValidator, command)) {
+                            continue;
+                        }
+                        if (builder == null) {
+                            builder = errorBuilderProvider.acquire();
+                        }
+                        commandValidator.validate(command, (R) builder);
+                        if (failFast && builder.hasErrors()) {
+                            break;
+                        }
+                    }
+                    if (failFast && builder != null && builder.hasErrors()) {
+                        break;
+                    }
+                }
+                if (builder != null && builder.hasErrors()) {
+                    builder.build();
+                }
+            } finally {
+                if (builder != null) {
+                    errorBuilderProvider.release(builder);
+                }
+            }
         }
     }
 
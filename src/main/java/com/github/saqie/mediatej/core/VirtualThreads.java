@@ -0,0 +1,36 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.exception.MediateJConflictException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Looks up virtual thread support at runtime, so the library still compiles and runs on Java 11
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        MethodHandle factory;
+        try {
+            factory = MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new MediateJConflictException("Virtual thread dispatch mode requires Java 21 or newer", e);
+        }
+        try {
+            return (ExecutorService) factory.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new MediateJConflictException("Cannot create virtual thread executor", e);
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.github.saqie.mediatej.core.configuration;
+
+public enum BackpressurePolicy {
+
+    BLOCK,
+    DROP,
+    CALLER_RUNS
+
+}
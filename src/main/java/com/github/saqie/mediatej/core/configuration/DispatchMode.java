@@ -0,0 +1,9 @@
+package com.github.saqie.mediatej.core.configuration;
+
+public enum DispatchMode {
+
+    EXECUTOR,
+    VIRTUAL_THREAD,
+    QUEUED
+
+}
@@ -3,6 +3,8 @@ package com.github.saqie.mediatej.core.configuration;
 public enum ErrorBuilderInstanceMode {
 
     ONE,
-    PER_SEND
+    PER_SEND,
+    THREAD_LOCAL,
+    POOLED
 
 }
@@ -0,0 +1,8 @@
+package com.github.saqie.mediatej.core.configuration;
+
+public enum HandlerResolutionMode {
+
+    EXACT,
+    HIERARCHY
+
+}
@@ -0,0 +1,9 @@
+package com.github.saqie.mediatej.core.configuration;
+
+public enum PublishStrategy {
+
+    SEQUENTIAL,
+    PARALLEL,
+    FIRE_AND_FORGET
+
+}
@@ -0,0 +1,8 @@
+package com.github.saqie.mediatej.core.configuration;
+
+public enum ValidationMode {
+
+    COLLECT_ALL,
+    FAIL_FAST
+
+}
@@ -0,0 +1,8 @@
+package com.github.saqie.mediatej.core.configuration;
+
+public enum ValidatorExecution {
+
+    SEQUENTIAL,
+    PARALLEL
+
+}
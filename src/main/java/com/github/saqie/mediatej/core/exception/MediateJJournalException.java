@@ -0,0 +1,15 @@
+package com.github.saqie.mediatej.core.exception;
+
+public class MediateJJournalException extends RuntimeException {
+
+    public MediateJJournalException() {
+    }
+
+    public MediateJJournalException(String message) {
+        super(message);
+    }
+
+    public MediateJJournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.saqie.mediatej.core.exception;
+
+public class MediateJScanException extends RuntimeException {
+
+    public MediateJScanException() {
+    }
+
+    public MediateJScanException(String message) {
+        super(message);
+    }
+
+    public MediateJScanException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.saqie.mediatej.core.exception;
+
+public class MediateJTimeoutException extends RuntimeException {
+
+    public MediateJTimeoutException() {
+    }
+
+    public MediateJTimeoutException(String message) {
+        super(message);
+    }
+
+    public MediateJTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.saqie.mediatej.core.index;
+
+/**
+ * Build-time index of handler and validator generic parameters, used during registration instead of reflection
+ * Implementations are generated by the MediateJ-processor annotation processor and loaded with {@link java.util.ServiceLoader}
+ * Every method answers for one generic interface, so a class implementing several of them, e.g. a command handler that is
+ * also an event handler, is resolved separately for each role
+ */
+public interface MediateTypeIndex {
+
+    /**
+     * @param handlerType -> Command handler class
+     * @return command type bound to the generic parameter of CommandHandler, null if the class is not indexed as a command handler
+     */
+    Class<?> commandType(Class<?> handlerType);
+
+    /**
+     * @param queryHandlerType -> Query handler class
+     * @return query type bound to the first generic parameter of QueryHandler, null if the class is not indexed as a query handler
+     */
+    Class<?> queryType(Class<?> queryHandlerType);
+
+    /**
+     * @param eventHandlerType -> Event handler class
+     * @return event type bound to the generic parameter of EventHandler, null if the class is not indexed as an event handler
+     */
+    Class<?> eventType(Class<?> eventHandlerType);
+
+    /**
+     * @param validatorType -> Validator class
+     * @return command or query type bound to the first generic parameter of CommandValidator, null if the validator is not indexed
+     */
+    Class<?> validatedType(Class<?> validatorType);
+
+    /**
+     * @param validatorType -> Validator class
+     * @return error builder type bound to the second generic parameter of the given validator, null if the validator is not indexed
+     */
+    Class<?> errorBuilderType(Class<?> validatorType);
+
+}
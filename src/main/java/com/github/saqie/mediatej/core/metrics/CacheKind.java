@@ -0,0 +1,9 @@
+package com.github.saqie.mediatej.core.metrics;
+
+public enum CacheKind {
+
+    QUERY_RESULTS,
+    DEDUPLICATION,
+    VALIDATION
+
+}
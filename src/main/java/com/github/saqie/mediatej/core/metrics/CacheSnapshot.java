@@ -0,0 +1,56 @@
+package com.github.saqie.mediatej.core.metrics;
+
+/**
+ * Point in time statistics of a query result cache, a command deduplication cache or a validation cache
+ */
+public final class CacheSnapshot {
+
+    private final Class<?> type;
+    private final CacheKind kind;
+    private final int size;
+    private final long hits;
+    private final long misses;
+
+    public CacheSnapshot(Class<?> type, CacheKind kind, int size, long hits, long misses) {
+        this.type = type;
+        this.kind = kind;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Query or command class the cache is configured for
+     */
+    public Class<?> type() {
+        return type;
+    }
+
+    public CacheKind kind() {
+        return kind;
+    }
+
+    /**
+     * Number of entries currently held, expired entries are counted until they are accessed or evicted
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of lookups answered from the cache, for deduplication the number of skipped duplicates,
+     * for validation the number of sends that skipped their validators
+     */
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.saqie.mediatej.core.metrics;
+
+public final class CommandMetricsSnapshot {
+
+    private final Class<?> commandType;
+    private final long sent;
+    private final long validationFailures;
+    private final long handlerFailures;
+    private final LatencySnapshot validationLatency;
+    private final LatencySnapshot handlingLatency;
+
+    public CommandMetricsSnapshot(Class<?> commandType, long sent, long validationFailures, long handlerFailures,
+                                  LatencySnapshot validationLatency, LatencySnapshot handlingLatency) {
+        this.commandType = commandType;
+        this.sent = sent;
+        this.validationFailures = validationFailures;
+        this.handlerFailures = handlerFailures;
+        this.validationLatency = validationLatency;
+        this.handlingLatency = handlingLatency;
+    }
+
+    public Class<?> commandType() {
+        return commandType;
+    }
+
+    public long sent() {
+        return sent;
+    }
+
+    public long validationFailures() {
+        return validationFailures;
+    }
+
+    public long handlerFailures() {
+        return handlerFailures;
+    }
+
+    public LatencySnapshot validationLatency() {
+        return validationLatency;
+    }
+
+    public LatencySnapshot handlingLatency() {
+        return handlingLatency;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.saqie.mediatej.core.metrics;
+
+/**
+ * Latency distribution in nanoseconds stored in log-linear buckets
+ * Every power of two is split into 8 buckets, so reported percentiles are within 12.5% of the recorded values
+ */
+public final class LatencySnapshot {
+
+    public static final int SUB_BUCKET_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    public static final int BUCKETS = (41 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    public LatencySnapshot(long[] counts, long totalNanos, long maxNanos) {
+        this.counts = counts.clone();
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Returns bucket index for the given latency, values over roughly 18 minutes share the last bucket
+     *
+     * @param nanos -> Recorded latency in nanoseconds
+     */
+    public static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket, BUCKETS - 1);
+    }
+
+    /**
+     * Returns the highest latency that falls into the given bucket
+     *
+     * @param bucket -> Bucket index
+     */
+    public static long bucketUpperBound(int bucket) {
+        return bucketLowerBound(bucket + 1) - 1;
+    }
+
+    private static long bucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    public double meanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Returns the latency under which the given percentage of recorded values fall
+     *
+     * @param percentile -> Percentile between 0 and 100, e.g. 99.9
+     */
+    public long valueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= threshold) {
+                return Math.min(bucketUpperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Returns a copy of the recorded count of every bucket, see {@link #bucketUpperBound(int)} for bucket bounds
+     */
+    public long[] bucketCounts() {
+        return counts.clone();
+    }
+}
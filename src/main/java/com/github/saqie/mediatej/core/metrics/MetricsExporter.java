@@ -0,0 +1,11 @@
+package com.github.saqie.mediatej.core.metrics;
+
+/**
+ * Receives metrics snapshots, e.g. to publish them to a monitoring system
+ * Exporters are called from {@link com.github.saqie.mediatej.core.Mediate#exportMetrics()}
+ */
+public interface MetricsExporter {
+
+    void export(MetricsSnapshot snapshot);
+
+}
@@ -0,0 +1,75 @@
+package com.github.saqie.mediatej.core.metrics;
+
+import java.util.List;
+
+/**
+ * Point in time copy of metrics recorded for every command type, of the dispatch queue state and of cache statistics
+ */
+public final class MetricsSnapshot {
+
+    private final List<CommandMetricsSnapshot> commandMetrics;
+    private final QueueSnapshot queue;
+    private final List<CacheSnapshot> caches;
+
+    public MetricsSnapshot(List<CommandMetricsSnapshot> commandMetrics) {
+        this(commandMetrics, null);
+    }
+
+    public MetricsSnapshot(List<CommandMetricsSnapshot> commandMetrics, QueueSnapshot queue) {
+        this(commandMetrics, queue, List.of());
+    }
+
+    public MetricsSnapshot(List<CommandMetricsSnapshot> commandMetrics, QueueSnapshot queue, List<CacheSnapshot> caches) {
+        this.commandMetrics = List.copyOf(commandMetrics);
+        this.queue = queue;
+        this.caches = List.copyOf(caches);
+    }
+
+    public List<CommandMetricsSnapshot> commandMetrics() {
+        return commandMetrics;
+    }
+
+    /**
+     * Returns metrics of the given command type or null if the type is not registered
+     *
+     * @param commandType -> Command or query class
+     */
+    public CommandMetricsSnapshot commandMetrics(Class<?> commandType) {
+        for (CommandMetricsSnapshot snapshot : commandMetrics) {
+            if (snapshot.commandType() == commandType) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns state of the dispatch queue or null if {@link com.github.saqie.mediatej.core.configuration.DispatchMode#QUEUED} is not used
+     */
+    public QueueSnapshot queue() {
+        return queue;
+    }
+
+    /**
+     * Returns statistics of every query result cache, command deduplication cache and validation cache,
+     * caches are tracked even when metrics collection is disabled
+     */
+    public List<CacheSnapshot> caches() {
+        return caches;
+    }
+
+    /**
+     * Returns statistics of the cache of the given kind configured for the given type or null if there is none
+     *
+     * @param type -> Query or command class
+     * @param kind -> Kind of the cache
+     */
+    public CacheSnapshot cache(Class<?> type, CacheKind kind) {
+        for (CacheSnapshot snapshot : caches) {
+            if (snapshot.type() == type && snapshot.kind() == kind) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+}
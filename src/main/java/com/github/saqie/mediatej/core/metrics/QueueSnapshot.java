@@ -0,0 +1,51 @@
+package com.github.saqie.mediatej.core.metrics;
+
+/**
+ * Point in time state of the dispatch queue used in {@link com.github.saqie.mediatej.core.configuration.DispatchMode#QUEUED} mode
+ */
+public final class QueueSnapshot {
+
+    private final int capacity;
+    private final int depth;
+    private final int workers;
+    private final long dropped;
+    private final long callerRuns;
+
+    public QueueSnapshot(int capacity, int depth, int workers, long dropped, long callerRuns) {
+        this.capacity = capacity;
+        this.depth = depth;
+        this.workers = workers;
+        this.dropped = dropped;
+        this.callerRuns = callerRuns;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of tasks waiting in the queue, tasks already taken by workers are not included
+     * With partition lanes, commands waiting in their lane are included as they take space of the queue
+     */
+    public int depth() {
+        return depth;
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    /**
+     * Number of tasks rejected because the queue was full with {@link com.github.saqie.mediatej.core.configuration.BackpressurePolicy#DROP}
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Number of tasks run on the submitting thread because the queue was full with {@link com.github.saqie.mediatej.core.configuration.BackpressurePolicy#CALLER_RUNS}
+     */
+    public long callerRuns() {
+        return callerRuns;
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandSerializer;
+import com.github.saqie.mediatej.core.exception.MediateJJournalException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should replay commands appended before reopening in append order across segment files")
+    public void shouldReplayCommandsAcrossSegments() throws IOException {
+        // given
+        CommandJournal journal = new CommandJournal(directory, new JavaCommandSerializer(), 1024, 0);
+        for (int i = 0; i < 50; i++) {
+            journal.append(new MediateTestClassPack.JournaledTestCommand("command-" + i));
+        }
+        journal.close();
+
+        // when
+        CommandJournal reopened = new CommandJournal(directory, new JavaCommandSerializer(), 1024, 0);
+        List<String> replayed = replay(reopened);
+        reopened.close();
+
+        // then
+        assertEquals(50, replayed.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("command-" + i, replayed.get(i));
+        }
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertTrue(segments.count() > 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop torn record at the end of journal and continue appending after the last valid record")
+    public void shouldRecoverFromTornRecord() throws IOException {
+        // given
+        CommandJournal journal = new CommandJournal(directory, new JavaCommandSerializer(), 64 * 1024, 10_000_000);
+        journal.append(new MediateTestClassPack.JournaledTestCommand("first"));
+        journal.append(new MediateTestClassPack.JournaledTestCommand("second"));
+        journal.close();
+        corruptLastRecord();
+
+        // when
+        CommandJournal reopened = new CommandJournal(directory, new JavaCommandSerializer(), 64 * 1024, 10_000_000);
+        reopened.append(new MediateTestClassPack.JournaledTestCommand("third"));
+        List<String> replayed = replay(reopened);
+        reopened.close();
+
+        // then
+        assertEquals(List.of("first", "third"), replayed);
+    }
+
+    @Test
+    @DisplayName("Should roll journal to a new segment while the appending thread is interrupted and keep the interrupt")
+    public void shouldRollSegmentOnInterruptedThread() {
+        // given
+        CommandJournal journal = new CommandJournal(directory, new JavaCommandSerializer(), 1024, 0);
+        Thread.currentThread().interrupt();
+
+        // when
+        try {
+            for (int i = 0; i < 20; i++) {
+                journal.append(new MediateTestClassPack.JournaledTestCommand("command-" + i));
+            }
+        } finally {
+            // then
+            assertTrue(Thread.interrupted());
+        }
+        assertEquals(20, replay(journal).size());
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Should reject command serialized to an empty payload")
+    public void shouldRejectEmptyPayload() {
+        // given
+        CommandJournal journal = new CommandJournal(directory, new CommandSerializer() {
+            @Override
+            public byte[] serialize(Command command) {
+                return new byte[0];
+            }
+
+            @Override
+            public Command deserialize(byte[] data) {
+                throw new UnsupportedOperationException();
+            }
+        }, 1024, 0);
+
+        // when
+        // then
+        assertThrowsExactly(MediateJJournalException.class, () -> journal.append(new MediateTestClassPack.JournaledTestCommand("empty")));
+        journal.close();
+    }
+
+    private List<String> replay(CommandJournal journal) {
+        List<String> replayed = new ArrayList<>();
+        journal.replay((Command command) -> replayed.add(((MediateTestClassPack.JournaledTestCommand) command).value()));
+        return replayed;
+    }
+
+    // Flips a payload byte of the second record, as if the process died while writing it
+    private void corruptLastRecord() throws IOException {
+        Path segment;
+        try (Stream<Path> segments = Files.list(directory)) {
+            segment = segments.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int secondRecord = 8 + header.flip().getInt();
+            ByteBuffer payloadByte = ByteBuffer.allocate(1);
+            channel.read(payloadByte, secondRecord + 20);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~payloadByte.get(0)}), secondRecord + 20);
+        }
+    }
+}
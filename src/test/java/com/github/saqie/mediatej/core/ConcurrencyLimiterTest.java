@@ -0,0 +1,72 @@
+package com.github.saqie.mediatej.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    @DisplayName("Should hand permits over in a loop when waiting sends run on the thread that finished the previous one")
+    public void shouldHandPermitsOverWithoutNestingOnDirectExecutor() throws Exception {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Executor direct = Runnable::run;
+        AtomicInteger handled = new AtomicInteger();
+        CompletableFuture<Void> first = limiter.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, task -> new Thread(task).start());
+        List<CompletableFuture<Void>> waiting = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            waiting.add(limiter.submit(handled::incrementAndGet, direct));
+        }
+
+        // when
+        release.countDown();
+
+        // then
+        first.get(10, TimeUnit.SECONDS);
+        CompletableFuture.allOf(waiting.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertEquals(100_000, handled.get());
+    }
+
+    @Test
+    @DisplayName("Should fail rejected send and pass its permit on to the next waiting send")
+    public void shouldPassPermitOnWhenExecutorRejectsSend() throws Exception {
+        // given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        List<Runnable> deferred = new ArrayList<>();
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("Closed");
+        };
+        CompletableFuture<Void> first = limiter.submit(() -> {
+        }, deferred::add);
+        CompletableFuture<Void> rejected = limiter.submit(() -> {
+        }, rejecting);
+        CompletableFuture<Void> last = limiter.submit(() -> {
+        }, Runnable::run);
+
+        // when
+        deferred.remove(0).run();
+
+        // then
+        assertTrue(first.isDone());
+        assertTrue(rejected.isCompletedExceptionally());
+        last.get(10, TimeUnit.SECONDS);
+    }
+}
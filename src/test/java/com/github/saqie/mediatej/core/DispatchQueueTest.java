@@ -0,0 +1,232 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.BackpressurePolicy;
+import com.github.saqie.mediatej.core.metrics.QueueSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatchQueueTest {
+
+    @Test
+    @DisplayName("Should run every task queued by many producers before close returns")
+    public void shouldRunEveryTaskQueuedByManyProducers() throws InterruptedException {
+        // given
+        DispatchQueue queue = new DispatchQueue(64, 2, BackpressurePolicy.BLOCK);
+        AtomicInteger executed = new AtomicInteger();
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            producers.add(new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    queue.execute(executed::incrementAndGet);
+                }
+            }));
+        }
+
+        // when
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        queue.close();
+
+        // then
+        assertEquals(40_000, executed.get());
+        assertEquals(0, queue.snapshot().depth());
+    }
+
+    @Test
+    @DisplayName("Should reject task and count it as dropped when queue is full with DROP policy")
+    public void shouldDropTaskWhenQueueIsFull() throws InterruptedException {
+        // given
+        DispatchQueue queue = new DispatchQueue(2, 1, BackpressurePolicy.DROP);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.execute(() -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+        });
+        started.await();
+        queue.execute(() -> {
+        });
+        queue.execute(() -> {
+        });
+
+        // when
+        // then
+        assertThrowsExactly(RejectedExecutionException.class, () -> queue.execute(() -> {
+        }));
+        QueueSnapshot snapshot = queue.snapshot();
+        assertEquals(2, snapshot.depth());
+        assertEquals(1, snapshot.dropped());
+        release.countDown();
+        queue.close();
+    }
+
+    @Test
+    @DisplayName("Should run task on calling thread when queue is full with CALLER_RUNS policy")
+    public void shouldRunTaskOnCallerWhenQueueIsFull() throws InterruptedException {
+        // given
+        DispatchQueue queue = new DispatchQueue(2, 1, BackpressurePolicy.CALLER_RUNS);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.execute(() -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+        });
+        started.await();
+        queue.execute(() -> {
+        });
+        queue.execute(() -> {
+        });
+        AtomicReference<Thread> runner = new AtomicReference<>();
+
+        // when
+        queue.execute(() -> runner.set(Thread.currentThread()));
+
+        // then
+        assertSame(Thread.currentThread(), runner.get());
+        assertEquals(1, queue.snapshot().callerRuns());
+        release.countDown();
+        queue.close();
+    }
+
+    @Test
+    @DisplayName("Should reject tasks after close")
+    public void shouldRejectTasksAfterClose() {
+        // given
+        DispatchQueue queue = new DispatchQueue(8, 1, BackpressurePolicy.BLOCK);
+
+        // when
+        queue.close();
+
+        // then
+        assertThrowsExactly(RejectedExecutionException.class, () -> queue.execute(() -> {
+        }));
+    }
+
+    @Test
+    @DisplayName("Should hold exactly the configured number of tasks when capacity is not a power of two")
+    public void shouldBoundQueueByExactCapacity() throws InterruptedException {
+        // given
+        DispatchQueue queue = new DispatchQueue(3, 1, BackpressurePolicy.DROP);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.execute(() -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+        });
+        started.await();
+        for (int i = 0; i < 3; i++) {
+            queue.execute(() -> {
+            });
+        }
+
+        // when
+        // then
+        assertThrowsExactly(RejectedExecutionException.class, () -> queue.execute(() -> {
+        }));
+        QueueSnapshot snapshot = queue.snapshot();
+        assertEquals(3, snapshot.capacity());
+        assertEquals(3, snapshot.depth());
+        release.countDown();
+        queue.close();
+    }
+
+    @Test
+    @DisplayName("Should return from close called by a task running on the producer thread with CALLER_RUNS policy")
+    public void shouldCloseFromTaskRunningOnProducerThread() throws InterruptedException {
+        // given
+        DispatchQueue queue = new DispatchQueue(1, 1, BackpressurePolicy.CALLER_RUNS);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+        queue.execute(() -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+        });
+        started.await();
+        queue.execute(executed::incrementAndGet);
+
+        // when
+        queue.execute(() -> {
+            release.countDown();
+            queue.close();
+        });
+
+        // then
+        assertEquals(1, executed.get());
+        assertEquals(1, queue.snapshot().callerRuns());
+        assertThrowsExactly(RejectedExecutionException.class, () -> queue.execute(() -> {
+        }));
+    }
+
+    @Test
+    @DisplayName("Should keep worker running after a task throws an error")
+    public void shouldKeepWorkerAliveAfterTaskThrowsError() {
+        // given
+        DispatchQueue queue = new DispatchQueue(8, 1, BackpressurePolicy.BLOCK);
+        AtomicInteger executed = new AtomicInteger();
+
+        // when
+        queue.execute(() -> {
+            throw new AssertionError("Task failure");
+        });
+        queue.execute(executed::incrementAndGet);
+        queue.close();
+
+        // then
+        assertEquals(1, executed.get());
+    }
+
+    @Test
+    @DisplayName("Should run every task accepted by producers racing with close")
+    public void shouldRunEveryTaskAcceptedWhileClosing() throws InterruptedException {
+        // given
+        DispatchQueue queue = new DispatchQueue(16, 2, BackpressurePolicy.BLOCK);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger executed = new AtomicInteger();
+        CountDownLatch producing = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            producers.add(new Thread(() -> {
+                producing.countDown();
+                while (true) {
+                    try {
+                        queue.execute(executed::incrementAndGet);
+                        accepted.incrementAndGet();
+                    } catch (RejectedExecutionException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        producing.await();
+
+        // when
+        queue.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // then
+        assertEquals(accepted.get(), executed.get());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.metrics.LatencySnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Should place every value in a bucket whose bounds contain the value")
+    public void shouldPlaceValueInBucketContainingIt() {
+        // given
+        long[] values = {0, 1, 7, 8, 15, 16, 17, 1_000, 123_456, 10_000_000_000L};
+
+        // when
+        // then
+        for (long value : values) {
+            int bucket = LatencySnapshot.bucket(value);
+            assertTrue(value <= LatencySnapshot.bucketUpperBound(bucket), "Upper bound for " + value);
+            assertTrue(bucket == 0 || value > LatencySnapshot.bucketUpperBound(bucket - 1), "Lower bound for " + value);
+        }
+    }
+
+    @Test
+    @DisplayName("Should report percentiles, mean and max of recorded values")
+    public void shouldReportPercentilesOfRecordedValues() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000L);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        // then
+        assertEquals(100, snapshot.count());
+        assertEquals(100_000, snapshot.maxNanos());
+        assertEquals(50_500, snapshot.meanNanos());
+        assertEquals(50_000, snapshot.valueAtPercentile(50), 50_000 * 0.125);
+        assertEquals(99_000, snapshot.valueAtPercentile(99), 99_000 * 0.125);
+        assertEquals(100_000, snapshot.valueAtPercentile(100));
+    }
+
+}
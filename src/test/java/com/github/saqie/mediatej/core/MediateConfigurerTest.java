@@ -6,15 +6,23 @@ import com.github.saqie.mediatej.core.configuration.HandlerConflictMode;
 import com.github.saqie.mediatej.core.exception.MediateJConflictException;
 import com.github.saqie.mediatej.core.exception.MediateJMissingArgumentException;
 import com.github.saqie.mediatej.core.exception.MediateJWrongParameterException;
+import com.github.saqie.mediatej.core.scan.ScanTestClassPack;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class MediateConfigurerTest {
 
+    @TempDir
+    Path directory;
+
     @Test
     @DisplayName("Should set default parameters values when create mediate configurer via constructor")
     public void shouldSetDefaultParameterValuesWhenCreateMediateConfigurer() {
@@ -87,6 +95,33 @@ class MediateConfigurerTest {
         assertEquals(errorBuilder, configurer.errorBuilder());
     }
 
+    @Test
+    @DisplayName("Should register error builder supplier and resolve error builder from it")
+    public void shouldRegisterErrorBuilderSupplier() {
+        // given
+        Supplier<MediateTestClassPack.TestErrorBuilder> supplier = MediateTestClassPack.TestErrorBuilder::new;
+        MediateConfigurer configurer = new MediateConfigurer();
+
+        // when
+        configurer.registerErrorBuilderSupplier(supplier);
+
+        // then
+        assertEquals(supplier, configurer.errorBuilderSupplier());
+        assertInstanceOf(MediateTestClassPack.TestErrorBuilder.class, configurer.errorBuilder());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJMissingArgumentException if provided error builder supplier returns null")
+    public void shouldThrowExceptionIfErrorBuilderSupplierReturnsNull() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer();
+
+        // when
+        // then
+        MediateJMissingArgumentException exception = assertThrowsExactly(MediateJMissingArgumentException.class, () -> configurer.registerErrorBuilderSupplier(() -> null));
+        assertEquals("ErrorBuilder supplier cannot return null", exception.getMessage());
+    }
+
     @Test
     @DisplayName("Should register new command handler")
     public void shouldRegisterNewCommandHandler() {
@@ -100,7 +135,7 @@ class MediateConfigurerTest {
         // then
         assertEquals(1, configurer.commandBundleMap().size());
         assertEquals(testCommandHandler, configurer.commandBundleMap().values().iterator().next().commandHandler());
-        assertEquals(MediateTestClassPack.TestCommand.class.getCanonicalName(), configurer.commandBundleMap().keySet().iterator().next());
+        assertEquals(MediateTestClassPack.TestCommand.class, configurer.commandBundleMap().keySet().iterator().next());
         assertFalse(configurer.commandBundleMap().values().iterator().next().commandValidator().isPresent());
     }
 
@@ -137,7 +172,7 @@ class MediateConfigurerTest {
         assertEquals(1, configurer.commandBundleMap().size());
         assertEquals(testCommandHandlerSecond, configurer.commandBundleMap().values().iterator().next().commandHandler());
         assertFalse(configurer.commandBundleMap().values().iterator().next().commandValidator().isPresent());
-        assertEquals(MediateTestClassPack.TestCommand.class.getCanonicalName(), configurer.commandBundleMap().keySet().iterator().next());
+        assertEquals(MediateTestClassPack.TestCommand.class, configurer.commandBundleMap().keySet().iterator().next());
     }
 
     @Test
@@ -286,10 +321,153 @@ class MediateConfigurerTest {
         configurer.register(commandBundles);
 
         // then
-        Map<String, CommandBundle<? extends Command, ? extends ErrorBuilder>> map = configurer.commandBundleMap();
+        Map<Class<?>, CommandBundle<? extends Command, ? extends ErrorBuilder>> map = configurer.commandBundleMap();
         assertEquals(2, map.size());
-        assertNotNull(map.get(MediateTestClassPack.TestCommand.class.getCanonicalName()));
-        assertNotNull(map.get(MediateTestClassPack.SecondTestCommand.class.getCanonicalName()));
+        assertNotNull(map.get(MediateTestClassPack.TestCommand.class));
+        assertNotNull(map.get(MediateTestClassPack.SecondTestCommand.class));
+    }
+
+    @Test
+    @DisplayName("Should register command handler which implements another interface before command handler")
+    public void shouldRegisterCommandHandlerImplementingAnotherInterfaceFirst() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer();
+
+        // when
+        configurer.register(new MediateTestClassPack.AuditedTestCommandHandler());
+
+        // then
+        assertNotNull(configurer.commandBundleMap().get(MediateTestClassPack.TestCommand.class));
+    }
+
+    @Test
+    @DisplayName("Should register command handler and validator which extend abstract generic base classes")
+    public void shouldRegisterCommandHandlerAndValidatorExtendingGenericBaseClass() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer();
+        configurer.registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder());
+
+        // when
+        configurer.register(new MediateTestClassPack.InheritedTestCommandHandler(), new MediateTestClassPack.InheritedTestCommandValidator());
+
+        // then
+        CommandBundle<? extends Command, ? extends ErrorBuilder> commandBundle = configurer.commandBundleMap().get(MediateTestClassPack.TestCommand.class);
+        assertNotNull(commandBundle);
+        assertTrue(commandBundle.commandValidator().isPresent());
+    }
+
+    @Test
+    @DisplayName("Should register query handler with nested generic parameters")
+    public void shouldRegisterQueryHandlerWithNestedGenericParameters() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer();
+
+        // when
+        configurer.registerQueryHandler(new MediateTestClassPack.GenericTestQueryHandler());
+
+        // then
+        assertNotNull(configurer.queryRouteMap().get(MediateTestClassPack.GenericTestQuery.class));
+    }
+
+    @Test
+    @DisplayName("Should resolve command type from registered type index without reflection")
+    public void shouldResolveCommandTypeFromRegisteredTypeIndex() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer();
+        configurer.registerTypeIndex(new MediateTestClassPack.TestTypeIndex());
+
+        // when
+        configurer.register(new MediateTestClassPack.IndexedTestCommandHandler());
+
+        // then
+        assertNotNull(configurer.commandBundleMap().get(MediateTestClassPack.TestCommand.class));
+    }
+
+    @Test
+    @DisplayName("Should resolve command and event type of class that is both command and event handler from their own type index columns")
+    public void shouldResolveDualRoleHandlerFromTypeIndex() {
+        // given
+        MediateTestClassPack.DualRoleHandler handler = new MediateTestClassPack.DualRoleHandler();
+        MediateConfigurer configurer = new MediateConfigurer();
+        configurer.registerTypeIndex(new MediateTestClassPack.TestTypeIndex());
+
+        // when
+        Mediate mediate = configurer
+                .register(handler)
+                .registerEventHandler(handler)
+                .build();
+        mediate.send(new MediateTestClassPack.TestCommand());
+        mediate.publish(new MediateTestClassPack.TestEvent());
+
+        // then
+        assertEquals(2, handler.handled().size());
+        assertInstanceOf(MediateTestClassPack.TestCommand.class, handler.handled().get(0));
+        assertInstanceOf(MediateTestClassPack.TestEvent.class, handler.handled().get(1));
+    }
+
+    @Test
+    @DisplayName("Should register scanned handlers and validators and reuse scan index on next scan")
+    public void shouldRegisterScannedHandlersAndReuseScanIndex() {
+        // given
+        Path indexFile = directory.resolve("scan.idx");
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .scanIndexFile(indexFile)
+                .build()
+                .registerErrorBuilder(new ScanTestClassPack.ScanTestErrorBuilder());
+
+        // when
+        configurer.scan("com.github.saqie.mediatej.core.scan");
+
+        // then
+        ClasspathScanner scanner = new ClasspathScanner(getClass().getClassLoader(), List.of("com.github.saqie.mediatej.core.scan"));
+        assertEquals(List.of(ScanTestClassPack.ScanTestCommandHandler.class.getName(), ScanTestClassPack.ScanTestCommandValidator.class.getName(),
+                        ScanTestClassPack.class.getName() + "$ScanTestQueryHandler"),
+                ScanIndex.read(indexFile, scanner.fingerprint(), scanner.packages()));
+        CommandBundle<? extends Command, ? extends ErrorBuilder> commandBundle = configurer.commandBundleMap().get(ScanTestClassPack.ScanTestCommand.class);
+        assertNotNull(commandBundle);
+        assertTrue(commandBundle.commandValidator().isPresent());
+        assertNotNull(configurer.queryRouteMap().get(ScanTestClassPack.ScanTestQuery.class));
+
+        MediateConfigurer nextConfigurer = new MediateCoreConfigurer()
+                .scanIndexFile(indexFile)
+                .build()
+                .registerErrorBuilder(new ScanTestClassPack.ScanTestErrorBuilder())
+                .scan("com.github.saqie.mediatej.core.scan");
+        assertEquals(1, nextConfigurer.commandBundleMap().size());
+        assertEquals(1, nextConfigurer.queryRouteMap().size());
+    }
+
+    @Test
+    @DisplayName("Should ignore scan index listing classes outside scanned packages and scan again")
+    public void shouldIgnoreScanIndexListingClassesOutsideScannedPackages() {
+        // given
+        Path indexFile = directory.resolve("scan.idx");
+        ClasspathScanner scanner = new ClasspathScanner(getClass().getClassLoader(), List.of("com.github.saqie.mediatej.core.scan"));
+        ScanIndex.write(indexFile, scanner.fingerprint(), scanner.packages(), List.of(MediateTestClassPack.TestCommandHandler.class.getName()));
+
+        // when
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .scanIndexFile(indexFile)
+                .build()
+                .registerErrorBuilder(new ScanTestClassPack.ScanTestErrorBuilder())
+                .scan("com.github.saqie.mediatej.core.scan");
+
+        // then
+        assertNull(configurer.commandBundleMap().get(MediateTestClassPack.TestCommand.class));
+        assertNotNull(configurer.commandBundleMap().get(ScanTestClassPack.ScanTestCommand.class));
+        assertFalse(ScanIndex.read(indexFile, scanner.fingerprint(), scanner.packages()).contains(MediateTestClassPack.TestCommandHandler.class.getName()));
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJConflictException if scan finds more than one validator for command type")
+    public void shouldThrowExceptionIfScanFindsTwoValidatorsForCommandType() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer()
+                .registerErrorBuilder(new ScanTestClassPack.ScanTestErrorBuilder());
+
+        // when
+        // then
+        assertThrowsExactly(MediateJConflictException.class, () -> configurer.scan("com.github.saqie.mediatej.core.scanconflict"));
     }
 
 }
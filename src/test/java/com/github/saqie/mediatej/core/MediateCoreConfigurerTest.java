@@ -1,8 +1,12 @@
 package com.github.saqie.mediatej.core;
 
+import com.github.saqie.mediatej.core.configuration.DispatchMode;
 import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
 import com.github.saqie.mediatej.core.configuration.HandlerConflictMode;
+import com.github.saqie.mediatej.core.configuration.HandlerResolutionMode;
+import com.github.saqie.mediatej.core.configuration.PublishStrategy;
 import com.github.saqie.mediatej.core.exception.MediateJMissingArgumentException;
+import com.github.saqie.mediatej.core.exception.MediateJWrongParameterException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -36,6 +40,9 @@ class MediateCoreConfigurerTest {
         // then
         assertEquals(HandlerConflictMode.OVERRIDE, coreConfigurer.handlerConflictMode());
         assertEquals(ErrorBuilderInstanceMode.PER_SEND, coreConfigurer.errorBuilderInstanceMode());
+        assertEquals(DispatchMode.EXECUTOR, coreConfigurer.dispatchMode());
+        assertEquals(HandlerResolutionMode.EXACT, coreConfigurer.handlerResolutionMode());
+        assertEquals(PublishStrategy.SEQUENTIAL, coreConfigurer.publishStrategy());
     }
 
     @Test
@@ -62,4 +69,46 @@ class MediateCoreConfigurerTest {
                 .errorBuilderInstanceMode(null), "Error builder instance mode cannot be null");
     }
 
+    @Test
+    @DisplayName("Should throw MediateJWrongParameterException if provided error builder pool size is not positive")
+    public void shouldThrowExceptionIfProvidedErrorBuilderPoolSizeIsNotPositive() {
+        // given
+        MediateCoreConfigurer coreConfigurer = new MediateCoreConfigurer();
+
+        // when
+        // then
+        MediateJWrongParameterException exception = assertThrowsExactly(MediateJWrongParameterException.class, () -> coreConfigurer
+                .errorBuilderPoolSize(0));
+        assertEquals("Error builder pool size must be greater than 0", exception.getMessage());
+    }
+
+
+    @Test
+    @DisplayName("Should throw MediateJWrongParameterException when queue capacity or partition lanes do not fit a power of two int")
+    public void shouldThrowExceptionWhenQueueCapacityIsTooLarge() {
+        // given
+        MediateCoreConfigurer coreConfigurer = new MediateCoreConfigurer();
+
+        // when
+        coreConfigurer.queueCapacity(1 << 30);
+
+        // then
+        assertEquals(1 << 30, coreConfigurer.queueCapacity());
+        assertThrowsExactly(MediateJWrongParameterException.class, () -> coreConfigurer.queueCapacity((1 << 30) + 1));
+        assertThrowsExactly(MediateJWrongParameterException.class, () -> coreConfigurer.partitionLanes(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJWrongParameterException when partition lanes are combined with max concurrent sends per command")
+    public void shouldThrowExceptionWhenPartitionLanesAreCombinedWithConcurrencyLimit() {
+        // given
+        MediateCoreConfigurer coreConfigurer = new MediateCoreConfigurer()
+                .partitionLanes(4)
+                .maxConcurrentSendsPerCommand(2);
+
+        // when
+        // then
+        MediateJWrongParameterException exception = assertThrowsExactly(MediateJWrongParameterException.class, coreConfigurer::build);
+        assertEquals("Partition lanes cannot be combined with max concurrent sends per command", exception.getMessage());
+    }
 }
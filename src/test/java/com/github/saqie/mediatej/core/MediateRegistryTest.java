@@ -0,0 +1,164 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.core.configuration.HandlerConflictMode;
+import com.github.saqie.mediatej.core.configuration.HandlerResolutionMode;
+import com.github.saqie.mediatej.core.exception.MediateJConflictException;
+import com.github.saqie.mediatej.core.exception.MediateJMissingHandlerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediateRegistryTest {
+
+    @Test
+    @DisplayName("Should send command to handler registered after build")
+    public void shouldSendCommandToHandlerRegisteredAtRuntime() {
+        // given
+        Mediate mediate = new MediateConfigurer().build();
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+
+        // when
+        mediate.registry().register(handler);
+        mediate.send(new MediateTestClassPack.TestCommand());
+
+        // then
+        assertTrue(mediate.registry().isRegistered(MediateTestClassPack.TestCommand.class));
+        assertEquals(1, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJConflictException when registering second handler in THROW_EXCEPTION mode and replace it with replace")
+    public void shouldReplaceHandlerOnlyWithReplace() {
+        // given
+        MediateTestClassPack.CountingCommandHandler first = new MediateTestClassPack.CountingCommandHandler();
+        MediateTestClassPack.CountingCommandHandler second = new MediateTestClassPack.CountingCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .handlerConflictMode(HandlerConflictMode.THROW_EXCEPTION)
+                .build()
+                .register(first)
+                .build();
+
+        // when
+        assertThrowsExactly(MediateJConflictException.class, () -> mediate.registry().register(second));
+        mediate.registry().replace(second);
+        mediate.send(new MediateTestClassPack.TestCommand());
+
+        // then
+        assertEquals(0, first.handled());
+        assertEquals(1, second.handled());
+    }
+
+    @Test
+    @DisplayName("Should keep metrics of command type and validate cached command again after its handler and validator are replaced")
+    public void shouldKeepMetricsAndDropCachedValidationsOnReplace() {
+        // given
+        MediateTestClassPack.PositiveNumberValidator first = new MediateTestClassPack.PositiveNumberValidator();
+        MediateTestClassPack.PositiveNumberValidator second = new MediateTestClassPack.PositiveNumberValidator();
+        Mediate mediate = new MediateCoreConfigurer()
+                .collectMetrics(true)
+                .build()
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(), first)
+                .cacheValidation(MediateTestClassPack.NumberCommand.class, 10, Duration.ofMinutes(1))
+                .build();
+        mediate.send(new MediateTestClassPack.NumberCommand(1));
+
+        // when
+        mediate.registry().replace(new MediateTestClassPack.NumberCommandHandler(), second);
+        mediate.send(new MediateTestClassPack.NumberCommand(1));
+        mediate.send(new MediateTestClassPack.NumberCommand(1));
+
+        // then
+        assertEquals(1, first.validations());
+        assertEquals(1, second.validations());
+        assertEquals(3, mediate.metrics().commandMetrics(MediateTestClassPack.NumberCommand.class).sent());
+    }
+
+    @Test
+    @DisplayName("Should resolve again only the command classes a swap can affect in HIERARCHY resolution mode")
+    public void shouldResolveAgainOnlyClassesAffectedBySwap() {
+        // given
+        MediateTestClassPack.CountingCommandHandler first = new MediateTestClassPack.CountingCommandHandler();
+        MediateTestClassPack.CountingMarkerCommandHandler marker = new MediateTestClassPack.CountingMarkerCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .handlerResolutionMode(HandlerResolutionMode.HIERARCHY)
+                .build()
+                .register(first)
+                .register(marker)
+                .build();
+        mediate.send(new MediateTestClassPack.SubTestCommand());
+        mediate.send(new MediateTestClassPack.MarkedTestCommand());
+
+        // when
+        MediateTestClassPack.CountingCommandHandler last = null;
+        for (int i = 0; i < 20; i++) {
+            last = new MediateTestClassPack.CountingCommandHandler();
+            mediate.registry().replace(last);
+            mediate.send(new MediateTestClassPack.SubTestCommand());
+        }
+        mediate.send(new MediateTestClassPack.MarkedTestCommand());
+        mediate.registry().unregister(MediateTestClassPack.MarkerCommand.class);
+
+        // then
+        assertEquals(1, first.handled());
+        assertEquals(1, last.handled());
+        assertEquals(2, marker.handled());
+        assertThrowsExactly(MediateJMissingHandlerException.class, () -> mediate.send(new MediateTestClassPack.MarkedTestCommand()));
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJMissingHandlerException for command whose handler was unregistered")
+    public void shouldThrowExceptionForUnregisteredHandler() {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .register(new MediateTestClassPack.TestCommandHandler())
+                .registerQueryHandler(new MediateTestClassPack.TestQueryHandler())
+                .build();
+
+        // when
+        mediate.registry()
+                .unregister(MediateTestClassPack.TestCommand.class)
+                .unregister(MediateTestClassPack.TestQuery.class);
+
+        // then
+        assertThrowsExactly(MediateJMissingHandlerException.class, () -> mediate.send(new MediateTestClassPack.TestCommand()));
+        assertThrowsExactly(MediateJMissingHandlerException.class, () -> mediate.send(new MediateTestClassPack.TestQuery("MediateJ")));
+    }
+
+    @Test
+    @DisplayName("Should never miss handler while it is replaced concurrently with sends")
+    public void shouldNeverMissHandlerWhileReplacing() throws InterruptedException {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .register(new MediateTestClassPack.AtomicCountingCommandHandler())
+                .build();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread sender = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    mediate.send(new MediateTestClassPack.TestCommand());
+                } catch (Throwable e) {
+                    failure.set(e);
+                    return;
+                }
+            }
+        });
+
+        // when
+        sender.start();
+        for (int i = 0; i < 10_000; i++) {
+            mediate.registry().replace(new MediateTestClassPack.AtomicCountingCommandHandler());
+        }
+        running.set(false);
+        sender.join();
+
+        // then
+        assertNull(failure.get());
+    }
+}
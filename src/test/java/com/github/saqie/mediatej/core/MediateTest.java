@@ -0,0 +1,1210 @@
+package com.github.saqie.mediatej.core;
+
+import com.github.saqie.mediatej.api.CommandValidator;
+import com.github.saqie.mediatej.core.configuration.BackpressurePolicy;
+import com.github.saqie.mediatej.core.configuration.DispatchMode;
+import com.github.saqie.mediatej.core.configuration.ErrorBuilderInstanceMode;
+import com.github.saqie.mediatej.core.configuration.HandlerResolutionMode;
+import com.github.saqie.mediatej.core.configuration.PublishStrategy;
+import com.github.saqie.mediatej.core.configuration.ValidationMode;
+import com.github.saqie.mediatej.core.configuration.ValidatorExecution;
+import com.github.saqie.mediatej.core.exception.MediateJConflictException;
+import com.github.saqie.mediatej.core.exception.MediateJJournalException;
+import com.github.saqie.mediatej.core.exception.MediateJMissingArgumentException;
+import com.github.saqie.mediatej.core.exception.MediateJMissingHandlerException;
+import com.github.saqie.mediatej.core.exception.MediateJTimeoutException;
+import com.github.saqie.mediatej.core.exception.MediateJWrongParameterException;
+import com.github.saqie.mediatej.core.metrics.CacheKind;
+import com.github.saqie.mediatej.core.metrics.CacheSnapshot;
+import com.github.saqie.mediatej.core.metrics.CommandMetricsSnapshot;
+import com.github.saqie.mediatej.core.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediateTest {
+
+    @Test
+    @DisplayName("Should send command to the handler registered for its class")
+    public void shouldSendCommandToRegisteredHandler() {
+        // given
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .register(handler)
+                .register(new MediateTestClassPack.SecondTestCommandHandler())
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.TestCommand());
+        mediate.send(new MediateTestClassPack.TestCommand());
+
+        // then
+        assertEquals(2, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should send subclass and anonymous subclass of command to superclass handler in HIERARCHY resolution mode")
+    public void shouldSendCommandSubclassToSuperclassHandlerInHierarchyMode() {
+        // given
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .handlerResolutionMode(HandlerResolutionMode.HIERARCHY)
+                .build()
+                .register(handler)
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.SubTestCommand());
+        mediate.send(new MediateTestClassPack.SubTestCommand());
+        mediate.send(new MediateTestClassPack.TestCommand() {
+        });
+
+        // then
+        assertEquals(3, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should send command to handler registered for its interface in HIERARCHY resolution mode")
+    public void shouldSendCommandToInterfaceHandlerInHierarchyMode() {
+        // given
+        MediateTestClassPack.CountingMarkerCommandHandler handler = new MediateTestClassPack.CountingMarkerCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .handlerResolutionMode(HandlerResolutionMode.HIERARCHY)
+                .build()
+                .register(handler)
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.MarkedTestCommand());
+
+        // then
+        assertEquals(1, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJMissingHandlerException for command subclass in default EXACT resolution mode")
+    public void shouldThrowExceptionForCommandSubclassInExactMode() {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .register(new MediateTestClassPack.CountingCommandHandler())
+                .build();
+
+        // when
+        // then
+        assertThrowsExactly(MediateJMissingHandlerException.class, () -> mediate.send(new MediateTestClassPack.SubTestCommand()));
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJMissingHandlerException if there is no handler for the command class")
+    public void shouldThrowExceptionIfHandlerForCommandNotFound() {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .register(new MediateTestClassPack.TestCommandHandler())
+                .build();
+
+        // when
+        // then
+        MediateJMissingHandlerException exception = assertThrowsExactly(MediateJMissingHandlerException.class,
+                () -> mediate.send(new MediateTestClassPack.SecondTestCommand()));
+        assertEquals("Command handler for " + MediateTestClassPack.SecondTestCommand.class.getSimpleName() + " not found", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJMissingArgumentException if sent command is null")
+    public void shouldThrowExceptionIfSentCommandIsNull() {
+        // given
+        Mediate mediate = new MediateConfigurer().build();
+
+        // when
+        // then
+        MediateJMissingArgumentException exception = assertThrowsExactly(MediateJMissingArgumentException.class,
+                () -> mediate.send((MediateTestClassPack.TestCommand) null));
+        assertEquals("Command cannot be null", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should create new error builder from registered supplier on every send in PER_SEND mode")
+    public void shouldCreateErrorBuilderFromSupplierOnEverySend() {
+        // given
+        AtomicInteger created = new AtomicInteger();
+        Mediate mediate = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.PER_SEND)
+                .build()
+                .registerErrorBuilderSupplier(() -> {
+                    created.incrementAndGet();
+                    return new MediateTestClassPack.TestErrorBuilder();
+                })
+                .register(new MediateTestClassPack.TestCommandHandler(), new MediateTestClassPack.TestCommandValidator())
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.TestCommand());
+        mediate.send(new MediateTestClassPack.TestCommand());
+
+        // then
+        // One instance is created during registration
+        assertEquals(3, created.get());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJConflictException on build if error builder doesn't have no args constructor in PER_SEND mode")
+    public void shouldThrowExceptionOnBuildIfErrorBuilderHasNoNoArgsConstructor() {
+        // given
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.PER_SEND)
+                .build()
+                .registerErrorBuilder(new MediateTestClassPack.TestErrorBuilderWithoutNoArgsConstructor("test"));
+
+        // when
+        // then
+        MediateJConflictException exception = assertThrowsExactly(MediateJConflictException.class, configurer::build);
+        assertEquals("Cannot create instance for class " + MediateTestClassPack.TestErrorBuilderWithoutNoArgsConstructor.class.getCanonicalName()
+                + " make sure that class have no args constructor", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should reuse and reset one error builder per thread in THREAD_LOCAL mode")
+    public void shouldReuseErrorBuilderPerThreadInThreadLocalMode() {
+        // given
+        List<MediateTestClassPack.TestErrorBuilder> created = new ArrayList<>();
+        Mediate mediate = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.THREAD_LOCAL)
+                .build()
+                .registerErrorBuilderSupplier(() -> {
+                    MediateTestClassPack.TestErrorBuilder errorBuilder = new MediateTestClassPack.TestErrorBuilder();
+                    created.add(errorBuilder);
+                    return errorBuilder;
+                })
+                .register(new MediateTestClassPack.TestCommandHandler(), new MediateTestClassPack.TestCommandValidator())
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.TestCommand());
+        mediate.send(new MediateTestClassPack.TestCommand());
+
+        // then
+        // First instance is created during registration, second one is bound to the current thread
+        assertEquals(2, created.size());
+        assertEquals(2, created.get(1).resets());
+    }
+
+    @Test
+    @DisplayName("Should give fresh error builder to validation nested in another validation on the same thread in THREAD_LOCAL mode")
+    public void shouldNotShareErrorBuilderWithNestedValidationInThreadLocalMode() {
+        // given
+        MediateTestClassPack.NestedSendingNumberValidator validator = new MediateTestClassPack.NestedSendingNumberValidator();
+        Mediate mediate = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.THREAD_LOCAL)
+                .build()
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(), validator)
+                .build();
+        validator.mediate(mediate);
+
+        // when
+        IllegalArgumentException exception = assertThrowsExactly(IllegalArgumentException.class,
+                () -> mediate.send(new MediateTestClassPack.NumberCommand(-200)));
+
+        // then
+        assertEquals("Value -200 is not positive", exception.getMessage());
+        assertDoesNotThrow(() -> mediate.send(new MediateTestClassPack.NumberCommand(5)));
+    }
+
+    @Test
+    @DisplayName("Should reuse and reset pooled error builders in POOLED mode")
+    public void shouldReusePooledErrorBuildersInPooledMode() {
+        // given
+        AtomicInteger created = new AtomicInteger();
+        Mediate mediate = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.POOLED)
+                .errorBuilderPoolSize(2)
+                .build()
+                .registerErrorBuilderSupplier(() -> {
+                    created.incrementAndGet();
+                    return new MediateTestClassPack.TestErrorBuilder();
+                })
+                .register(new MediateTestClassPack.TestCommandHandler(), new MediateTestClassPack.TestCommandValidator())
+                .build();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            mediate.send(new MediateTestClassPack.TestCommand());
+        }
+
+        // then
+        // One instance is created during registration and two fill the pool
+        assertEquals(3, created.get());
+    }
+
+    @Test
+    @DisplayName("Should handle command on registered executor when sent asynchronously")
+    public void shouldHandleCommandOnRegisteredExecutorWhenSentAsync() {
+        // given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .registerExecutor(executor)
+                .register(handler)
+                .build();
+
+        // when
+        CompletableFuture<Void> first = mediate.sendAsync(new MediateTestClassPack.TestCommand());
+        CompletableFuture<Void> second = mediate.sendAsync(new MediateTestClassPack.TestCommand());
+        CompletableFuture.allOf(first, second).join();
+        executor.shutdown();
+
+        // then
+        assertEquals(2, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should complete future exceptionally and skip handler if validation fails when sent asynchronously")
+    public void shouldCompleteFutureExceptionallyIfValidationFailsWhenSentAsync() {
+        // given
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .registerExecutor(Runnable::run)
+                .registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder())
+                .register(handler, new MediateTestClassPack.RejectingTestCommandValidator())
+                .build();
+
+        // when
+        CompletableFuture<Void> future = mediate.sendAsync(new MediateTestClassPack.TestCommand());
+
+        // then
+        CompletionException exception = assertThrowsExactly(CompletionException.class, future::join);
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertEquals(0, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should complete future exceptionally with MediateJMissingHandlerException if handler not found when sent asynchronously")
+    public void shouldCompleteFutureExceptionallyIfHandlerNotFoundWhenSentAsync() {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .registerExecutor(Runnable::run)
+                .build();
+
+        // when
+        CompletableFuture<Void> future = mediate.sendAsync(new MediateTestClassPack.TestCommand());
+
+        // then
+        CompletionException exception = assertThrowsExactly(CompletionException.class, future::join);
+        assertInstanceOf(MediateJMissingHandlerException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Should not handle more commands of one type at the same time than configured limit when sent asynchronously")
+    public void shouldLimitConcurrentAsyncSendsPerCommandType() {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        MediateTestClassPack.ConcurrencyTrackingCommandHandler handler = new MediateTestClassPack.ConcurrencyTrackingCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .maxConcurrentSendsPerCommand(1)
+                .build()
+                .registerExecutor(executor)
+                .register(handler)
+                .build();
+
+        // when
+        CompletableFuture.allOf(IntStream.range(0, 20)
+                .mapToObj(i -> mediate.sendAsync(new MediateTestClassPack.TestCommand()))
+                .toArray(CompletableFuture[]::new)).join();
+        executor.shutdown();
+
+        // then
+        assertEquals(1, handler.maxRunning());
+    }
+
+    @Test
+    @DisplayName("Should share concurrency limit between subclasses routed to one handler without blocking executor threads")
+    public void shouldShareConcurrencyLimitOfRouteWithoutBlockingExecutorThreads() {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        MediateTestClassPack.ConcurrencyTrackingCommandHandler handler = new MediateTestClassPack.ConcurrencyTrackingCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .maxConcurrentSendsPerCommand(1)
+                .handlerResolutionMode(HandlerResolutionMode.HIERARCHY)
+                .build()
+                .registerExecutor(executor)
+                .register(handler)
+                .register(new MediateTestClassPack.SecondTestCommandHandler())
+                .build();
+
+        // when
+        CompletableFuture<Void> limited = CompletableFuture.allOf(IntStream.range(0, 20)
+                .mapToObj(i -> mediate.sendAsync(i % 2 == 0 ? new MediateTestClassPack.TestCommand() : new MediateTestClassPack.SubTestCommand()))
+                .toArray(CompletableFuture[]::new));
+        mediate.sendAsync(new MediateTestClassPack.SecondTestCommand()).join();
+        boolean limitedDoneFirst = limited.isDone();
+        limited.join();
+        executor.shutdown();
+
+        // then
+        assertFalse(limitedDoneFirst);
+        assertEquals(1, handler.maxRunning());
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    @DisplayName("Should throw MediateJConflictException on build if virtual thread dispatch mode is used before Java 21")
+    public void shouldThrowExceptionOnBuildIfVirtualThreadsAreNotAvailable() {
+        // given
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .dispatchMode(DispatchMode.VIRTUAL_THREAD)
+                .build();
+
+        // when
+        // then
+        MediateJConflictException exception = assertThrowsExactly(MediateJConflictException.class, configurer::build);
+        assertEquals("Virtual thread dispatch mode requires Java 21 or newer", exception.getMessage());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @DisplayName("Should handle asynchronously sent commands on virtual threads in virtual thread dispatch mode")
+    public void shouldHandleCommandsOnVirtualThreads() {
+        // given
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .dispatchMode(DispatchMode.VIRTUAL_THREAD)
+                .build()
+                .register(handler)
+                .build();
+
+        // when
+        mediate.sendAsync(new MediateTestClassPack.TestCommand()).join();
+
+        // then
+        assertEquals(1, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should group commands by type and pass the whole group to batch command handler when sent together")
+    public void shouldGroupCommandsByTypeWhenSentTogether() {
+        // given
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        MediateTestClassPack.BatchSecondTestCommandHandler batchHandler = new MediateTestClassPack.BatchSecondTestCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .register(handler)
+                .register(batchHandler)
+                .build();
+
+        // when
+        mediate.sendAll(List.of(new MediateTestClassPack.TestCommand(), new MediateTestClassPack.SecondTestCommand(),
+                new MediateTestClassPack.TestCommand(), new MediateTestClassPack.SecondTestCommand(),
+                new MediateTestClassPack.SecondTestCommand()));
+
+        // then
+        assertEquals(2, handler.handled());
+        assertEquals(List.of(3), batchHandler.batchSizes());
+    }
+
+    @Test
+    @DisplayName("Should not handle any command if validation of one group fails when sent together")
+    public void shouldNotHandleAnyCommandIfValidationFailsWhenSentTogether() {
+        // given
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        MediateTestClassPack.BatchSecondTestCommandHandler batchHandler = new MediateTestClassPack.BatchSecondTestCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder())
+                .register(batchHandler)
+                .register(handler, new MediateTestClassPack.RejectingTestCommandValidator())
+                .build();
+
+        // when
+        // then
+        assertThrowsExactly(IllegalArgumentException.class, () -> mediate.sendAll(List.of(
+                new MediateTestClassPack.SecondTestCommand(), new MediateTestClassPack.TestCommand())));
+        assertEquals(0, handler.handled());
+        assertTrue(batchHandler.batchSizes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return result of query handler registered for query class")
+    public void shouldReturnResultOfQueryHandler() {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .registerQueryHandler(new MediateTestClassPack.TestQueryHandler())
+                .build();
+
+        // when
+        String result = mediate.send(new MediateTestClassPack.TestQuery("MediateJ"));
+
+        // then
+        assertEquals("Hello MediateJ", result);
+    }
+
+    @Test
+    @DisplayName("Should return cached result and skip query handler for equal queries if result caching is enabled")
+    public void shouldReturnCachedResultForEqualQueries() {
+        // given
+        MediateTestClassPack.TestQueryHandler handler = new MediateTestClassPack.TestQueryHandler();
+        Mediate mediate = new MediateConfigurer()
+                .registerQueryHandler(handler)
+                .cacheResults(MediateTestClassPack.TestQuery.class, 10)
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.TestQuery("First"));
+        mediate.send(new MediateTestClassPack.TestQuery("First"));
+        String result = mediate.send(new MediateTestClassPack.TestQuery("Second"));
+
+        // then
+        assertEquals("Hello Second", result);
+        assertEquals(2, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJMissingHandlerException if there is no handler for the query class")
+    public void shouldThrowExceptionIfHandlerForQueryNotFound() {
+        // given
+        Mediate mediate = new MediateConfigurer().build();
+
+        // when
+        // then
+        MediateJMissingHandlerException exception = assertThrowsExactly(MediateJMissingHandlerException.class,
+                () -> mediate.send(new MediateTestClassPack.TestQuery("MediateJ")));
+        assertEquals("Query handler for " + MediateTestClassPack.TestQuery.class.getSimpleName() + " not found", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should wrap command handler in registered behaviors in registration order")
+    public void shouldWrapCommandHandlerInBehaviorsInRegistrationOrder() {
+        // given
+        List<String> calls = new ArrayList<>();
+        MediateTestClassPack.CountingCommandHandler handler = new MediateTestClassPack.CountingCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .registerBehavior(new MediateTestClassPack.RecordingPipelineBehavior("first", calls))
+                .registerBehavior(new MediateTestClassPack.SecondTestCommandOnlyPipelineBehavior("skipped", calls))
+                .registerBehavior(new MediateTestClassPack.RecordingPipelineBehavior("second", calls))
+                .register(handler)
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.TestCommand());
+
+        // then
+        assertEquals(List.of("first before", "second before", "second after", "first after"), calls);
+        assertEquals(1, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should record sends, failures and latencies per command type if metrics are enabled")
+    public void shouldRecordMetricsPerCommandType() {
+        // given
+        List<MetricsSnapshot> exported = new ArrayList<>();
+        Mediate mediate = new MediateCoreConfigurer()
+                .collectMetrics(true)
+                .build()
+                .registerMetricsExporter(exported::add)
+                .registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder())
+                .register(new MediateTestClassPack.TestCommandHandler(), new MediateTestClassPack.RejectingTestCommandValidator())
+                .register(new MediateTestClassPack.SecondTestCommandHandler())
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.SecondTestCommand());
+        mediate.send(new MediateTestClassPack.SecondTestCommand());
+        assertThrows(IllegalArgumentException.class, () -> mediate.send(new MediateTestClassPack.TestCommand()));
+        mediate.exportMetrics();
+
+        // then
+        assertEquals(1, exported.size());
+        CommandMetricsSnapshot second = exported.get(0).commandMetrics(MediateTestClassPack.SecondTestCommand.class);
+        assertEquals(2, second.sent());
+        assertEquals(2, second.handlingLatency().count());
+        assertEquals(0, second.validationLatency().count());
+        CommandMetricsSnapshot first = exported.get(0).commandMetrics(MediateTestClassPack.TestCommand.class);
+        assertEquals(1, first.sent());
+        assertEquals(1, first.validationFailures());
+        assertEquals(0, first.handlingLatency().count());
+    }
+
+    @Test
+    @DisplayName("Should not record metrics if metrics are not enabled")
+    public void shouldNotRecordMetricsByDefault() {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .register(new MediateTestClassPack.TestCommandHandler())
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.TestCommand());
+
+        // then
+        assertTrue(mediate.metrics().commandMetrics().isEmpty());
+    }
+
+
+    @Test
+    @DisplayName("Should publish event to every subscribed handler in registration order including supertype handlers")
+    public void shouldPublishEventToEverySubscribedHandlerSequentially() {
+        // given
+        List<String> calls = new ArrayList<>();
+        Mediate mediate = new MediateConfigurer()
+                .registerEventHandler(new MediateTestClassPack.RecordingEventHandler("first", calls))
+                .registerEventHandler(new MediateTestClassPack.RecordingSubTestEventHandler("sub", calls))
+                .registerEventHandler(new MediateTestClassPack.RecordingEventHandler("second", calls))
+                .build();
+
+        // when
+        mediate.publish(new MediateTestClassPack.SubTestEvent());
+        mediate.publish(new MediateTestClassPack.TestEvent());
+
+        // then
+        assertEquals(List.of("first", "sub", "second", "first", "second"), calls);
+    }
+
+    @Test
+    @DisplayName("Should call every event handler and rethrow first failure with others suppressed")
+    public void shouldCallEveryEventHandlerAndRethrowFailure() {
+        // given
+        List<String> calls = new ArrayList<>();
+        Mediate mediate = new MediateConfigurer()
+                .registerEventHandler(new MediateTestClassPack.FailingEventHandler())
+                .registerEventHandler(new MediateTestClassPack.RecordingEventHandler("recording", calls))
+                .registerEventHandler(new MediateTestClassPack.FailingEventHandler())
+                .build();
+
+        // when
+        IllegalStateException exception = assertThrowsExactly(IllegalStateException.class, () -> mediate.publish(new MediateTestClassPack.TestEvent()));
+
+        // then
+        assertEquals(List.of("recording"), calls);
+        assertEquals(1, exception.getSuppressed().length);
+    }
+
+    @Test
+    @DisplayName("Should publish event to every subscribed handler with PARALLEL publish strategy")
+    public void shouldPublishEventInParallel() {
+        // given
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .publishStrategy(PublishStrategy.PARALLEL)
+                .build()
+                .registerEventHandler(new MediateTestClassPack.FailingEventHandler());
+        IntStream.range(0, 16).forEach(i -> configurer.registerEventHandler(new MediateTestClassPack.RecordingEventHandler("handler " + i, calls)));
+        Mediate mediate = configurer.build();
+
+        // when
+        assertThrowsExactly(IllegalStateException.class, () -> mediate.publish(new MediateTestClassPack.TestEvent()));
+
+        // then
+        assertEquals(16, calls.size());
+    }
+
+    @Test
+    @DisplayName("Should submit event handlers to the executor as one task and return at once with FIRE_AND_FORGET publish strategy")
+    public void shouldPublishEventFireAndForget() {
+        // given
+        List<Runnable> submitted = new ArrayList<>();
+        List<String> calls = new ArrayList<>();
+        Mediate mediate = new MediateCoreConfigurer()
+                .publishStrategy(PublishStrategy.FIRE_AND_FORGET)
+                .build()
+                .registerExecutor(submitted::add)
+                .registerEventHandler(new MediateTestClassPack.RecordingEventHandler("first", calls))
+                .registerEventHandler(new MediateTestClassPack.RecordingEventHandler("second", calls))
+                .build();
+
+        // when
+        mediate.publish(new MediateTestClassPack.TestEvent());
+
+        // then
+        assertTrue(calls.isEmpty());
+        assertEquals(1, submitted.size());
+        submitted.forEach(Runnable::run);
+        assertEquals(List.of("first", "second"), calls);
+    }
+
+    @Test
+    @DisplayName("Should deliver event to no handler and throw RejectedExecutionException if executor rejects FIRE_AND_FORGET publish")
+    public void shouldNotDeliverEventPartiallyIfExecutorRejectsFireAndForgetPublish() {
+        // given
+        List<String> calls = new ArrayList<>();
+        AtomicInteger accepted = new AtomicInteger();
+        Mediate mediate = new MediateCoreConfigurer()
+                .publishStrategy(PublishStrategy.FIRE_AND_FORGET)
+                .build()
+                .registerExecutor(task -> {
+                    if (accepted.getAndIncrement() > 0) {
+                        throw new RejectedExecutionException("Queue is full");
+                    }
+                    task.run();
+                })
+                .registerEventHandler(new MediateTestClassPack.RecordingEventHandler("first", calls))
+                .registerEventHandler(new MediateTestClassPack.RecordingEventHandler("second", calls))
+                .build();
+
+        // when
+        mediate.publish(new MediateTestClassPack.TestEvent());
+
+        // then
+        assertThrowsExactly(RejectedExecutionException.class, () -> mediate.publish(new MediateTestClassPack.TestEvent()));
+        assertEquals(List.of("first", "second"), calls);
+    }
+
+    @Test
+    @DisplayName("Should ignore published event without subscribers")
+    public void shouldIgnoreEventWithoutSubscribers() {
+        // given
+        Mediate mediate = new MediateConfigurer().build();
+
+        // when
+        // then
+        assertDoesNotThrow(() -> mediate.publish(new MediateTestClassPack.TestEvent()));
+    }
+
+    @Test
+    @DisplayName("Should handle every command sent asynchronously in QUEUED dispatch mode before close returns")
+    public void shouldHandleCommandsInQueuedDispatchMode() {
+        // given
+        MediateTestClassPack.AtomicCountingCommandHandler handler = new MediateTestClassPack.AtomicCountingCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .dispatchMode(DispatchMode.QUEUED)
+                .queueCapacity(16)
+                .queueWorkers(2)
+                .build()
+                .register(handler)
+                .build();
+
+        // when
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        IntStream.range(0, 100).forEach(i -> futures.add(mediate.sendAsync(new MediateTestClassPack.TestCommand())));
+        mediate.close();
+
+        // then
+        futures.forEach(future -> assertTrue(future.isDone()));
+        assertEquals(100, handler.handled());
+        assertEquals(16, mediate.metrics().queue().capacity());
+        assertEquals(0, mediate.metrics().queue().depth());
+    }
+
+    @Test
+    @DisplayName("Should complete future exceptionally with RejectedExecutionException when command is sent after close")
+    public void shouldRejectCommandSentAfterClose() {
+        // given
+        Mediate mediate = new MediateCoreConfigurer()
+                .dispatchMode(DispatchMode.QUEUED)
+                .backpressurePolicy(BackpressurePolicy.DROP)
+                .queueWorkers(1)
+                .build()
+                .register(new MediateTestClassPack.CountingCommandHandler())
+                .build();
+        mediate.close();
+
+        // when
+        CompletableFuture<Void> future = mediate.sendAsync(new MediateTestClassPack.TestCommand());
+
+        // then
+        CompletionException exception = assertThrowsExactly(CompletionException.class, future::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Should handle partitioned commands with the same partition key one at a time in send order")
+    public void shouldHandlePartitionedCommandsInSendOrderPerKey() {
+        // given
+        MediateTestClassPack.OrderRecordingCommandHandler handler = new MediateTestClassPack.OrderRecordingCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .dispatchMode(DispatchMode.QUEUED)
+                .queueWorkers(4)
+                .partitionLanes(2)
+                .build()
+                .register(handler)
+                .build();
+        List<String> keys = List.of("first", "second", "third", "fourth", "fifth");
+
+        // when
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        IntStream.range(0, 1_000).forEach(i -> keys.forEach(key ->
+                futures.add(mediate.sendAsync(new MediateTestClassPack.PartitionedTestCommand(key, i)))));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        mediate.close();
+
+        // then
+        List<Integer> expected = IntStream.range(0, 1_000).boxed().collect(Collectors.toList());
+        keys.forEach(key -> assertEquals(expected, handler.sequences(key)));
+        assertEquals(0, handler.overlaps());
+    }
+
+    @Test
+    @DisplayName("Should apply backpressure policy to partitioned commands waiting in lanes in QUEUED dispatch mode")
+    public void shouldApplyBackpressureToPartitionLanesInQueuedDispatchMode() throws InterruptedException {
+        // given
+        MediateTestClassPack.BlockingPartitionedCommandHandler handler = new MediateTestClassPack.BlockingPartitionedCommandHandler();
+        Mediate mediate = new MediateCoreConfigurer()
+                .dispatchMode(DispatchMode.QUEUED)
+                .queueCapacity(1)
+                .queueWorkers(1)
+                .backpressurePolicy(BackpressurePolicy.DROP)
+                .partitionLanes(1)
+                .build()
+                .register(handler)
+                .build();
+        CompletableFuture<Void> running = mediate.sendAsync(new MediateTestClassPack.PartitionedTestCommand("first", 0));
+        handler.awaitStarted();
+
+        // when
+        CompletableFuture<Void> waiting = mediate.sendAsync(new MediateTestClassPack.PartitionedTestCommand("first", 1));
+        CompletableFuture<Void> dropped = mediate.sendAsync(new MediateTestClassPack.PartitionedTestCommand("second", 0));
+
+        // then
+        CompletionException exception = assertThrowsExactly(CompletionException.class, dropped::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertEquals(1, mediate.metrics().queue().depth());
+        assertEquals(1, mediate.metrics().queue().dropped());
+        handler.release();
+        CompletableFuture.allOf(running, waiting).join();
+        mediate.close();
+        assertEquals(2, handler.handled());
+        assertEquals(0, mediate.metrics().queue().depth());
+    }
+
+    @Test
+    @DisplayName("Should skip command whose idempotency key was already sent and count duplicates as cache hits")
+    public void shouldSkipDuplicatedIdempotentCommand() {
+        // given
+        MediateTestClassPack.IdempotentTestCommandHandler handler = new MediateTestClassPack.IdempotentTestCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .register(handler)
+                .deduplicate(MediateTestClassPack.IdempotentTestCommand.class, 10, Duration.ofMinutes(1))
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.IdempotentTestCommand("first", false));
+        mediate.send(new MediateTestClassPack.IdempotentTestCommand("first", false));
+        mediate.send(new MediateTestClassPack.IdempotentTestCommand("second", false));
+
+        // then
+        assertEquals(2, handler.handled());
+        CacheSnapshot cache = mediate.metrics().cache(MediateTestClassPack.IdempotentTestCommand.class, CacheKind.DEDUPLICATION);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    @DisplayName("Should handle retried idempotent command when the first attempt failed")
+    public void shouldHandleRetriedIdempotentCommandAfterFailure() {
+        // given
+        MediateTestClassPack.IdempotentTestCommandHandler handler = new MediateTestClassPack.IdempotentTestCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .register(handler)
+                .deduplicate(MediateTestClassPack.IdempotentTestCommand.class, 10, Duration.ZERO)
+                .build();
+        assertThrowsExactly(IllegalStateException.class,
+                () -> mediate.send(new MediateTestClassPack.IdempotentTestCommand("first", true)));
+
+        // when
+        mediate.send(new MediateTestClassPack.IdempotentTestCommand("first", false));
+
+        // then
+        assertEquals(1, handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should replay journaled commands which passed validation without journaling them again")
+    public void shouldReplayJournaledCommands(@TempDir Path directory) {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder())
+                .register(new MediateTestClassPack.JournaledTestCommandHandler(), new MediateTestClassPack.JournaledTestCommandValidator())
+                .journal(directory, new JavaCommandSerializer())
+                .build();
+        mediate.send(new MediateTestClassPack.JournaledTestCommand("first"));
+        assertThrowsExactly(IllegalArgumentException.class, () -> mediate.send(new MediateTestClassPack.JournaledTestCommand("")));
+        mediate.send(new MediateTestClassPack.JournaledTestCommand("second"));
+        mediate.close();
+
+        MediateTestClassPack.JournaledTestCommandHandler handler = new MediateTestClassPack.JournaledTestCommandHandler();
+        Mediate recovered = new MediateConfigurer()
+                .register(handler)
+                .journal(directory, new JavaCommandSerializer())
+                .build();
+
+        // when
+        long replayed = recovered.replay();
+        recovered.replay();
+        recovered.close();
+
+        // then
+        assertEquals(2, replayed);
+        assertEquals(List.of("first", "second", "first", "second"), handler.handled());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJJournalException when replaying without journal")
+    public void shouldThrowExceptionWhenReplayingWithoutJournal() {
+        // given
+        Mediate mediate = new MediateConfigurer().build();
+
+        // when
+        // then
+        MediateJJournalException exception = assertThrowsExactly(MediateJJournalException.class, mediate::replay);
+        assertEquals("Journal is not configured", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should skip build on error builder when validator collected no errors")
+    public void shouldSkipBuildWithoutErrors() {
+        // given
+        MediateTestClassPack.CollectingErrorBuilder errorBuilder = new MediateTestClassPack.CollectingErrorBuilder();
+        Mediate mediate = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.ONE)
+                .build()
+                .registerErrorBuilder(errorBuilder)
+                .register(new MediateTestClassPack.NumberCommandHandler(), new MediateTestClassPack.PositiveNumberValidator())
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.NumberCommand(1));
+        mediate.send(new MediateTestClassPack.NumberCommand(2));
+
+        // then
+        assertEquals(0, errorBuilder.builds());
+        IllegalArgumentException exception = assertThrowsExactly(IllegalArgumentException.class,
+                () -> mediate.send(new MediateTestClassPack.NumberCommand(-1)));
+        assertEquals("Value -1 is not positive", exception.getMessage());
+        assertEquals(1, errorBuilder.builds());
+    }
+
+    @Test
+    @DisplayName("Should not create error builder for commands accepted by pure validator")
+    public void shouldNotCreateErrorBuilderForCommandsAcceptedByPureValidator() {
+        // given
+        AtomicInteger created = new AtomicInteger();
+        MediateTestClassPack.PurePositiveNumberValidator validator = new MediateTestClassPack.PurePositiveNumberValidator();
+        Mediate mediate = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.PER_SEND)
+                .build()
+                .registerErrorBuilderSupplier(() -> {
+                    created.incrementAndGet();
+                    return new MediateTestClassPack.CollectingErrorBuilder();
+                })
+                .register(new MediateTestClassPack.NumberCommandHandler(), validator)
+                .build();
+        created.set(0);
+
+        // when
+        mediate.send(new MediateTestClassPack.NumberCommand(1));
+        mediate.sendAll(List.of(new MediateTestClassPack.NumberCommand(2), new MediateTestClassPack.NumberCommand(3)));
+
+        // then
+        assertEquals(0, created.get());
+        assertEquals(0, validator.validations());
+        assertThrowsExactly(IllegalArgumentException.class, () -> mediate.send(new MediateTestClassPack.NumberCommand(0)));
+        assertEquals(1, created.get());
+        assertEquals(1, validator.validations());
+    }
+
+    @Test
+    @DisplayName("Should stop validating commands sent together at the first invalid one in FAIL_FAST validation mode")
+    public void shouldStopValidationAtFirstInvalidCommandInFailFastMode() {
+        // given
+        MediateTestClassPack.PositiveNumberValidator validator = new MediateTestClassPack.PositiveNumberValidator();
+        Mediate mediate = new MediateCoreConfigurer()
+                .validationMode(ValidationMode.FAIL_FAST)
+                .build()
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(), validator)
+                .build();
+        List<MediateTestClassPack.NumberCommand> commands = List.of(new MediateTestClassPack.NumberCommand(-1),
+                new MediateTestClassPack.NumberCommand(-2), new MediateTestClassPack.NumberCommand(3));
+
+        // when
+        IllegalArgumentException exception = assertThrowsExactly(IllegalArgumentException.class, () -> mediate.sendAll(commands));
+
+        // then
+        assertEquals("Value -1 is not positive", exception.getMessage());
+        assertEquals(1, validator.validations());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJWrongParameterException in FAIL_FAST validation mode if error builder does not override hasErrors")
+    public void shouldThrowExceptionInFailFastModeWithoutHasErrors() {
+        // given
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .validationMode(ValidationMode.FAIL_FAST)
+                .build()
+                .registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder());
+
+        // when
+        // then
+        MediateJWrongParameterException exception = assertThrowsExactly(MediateJWrongParameterException.class, configurer::build);
+        assertEquals("Error builder TestErrorBuilder has to override hasErrors() in FAIL_FAST validation mode", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should collect errors of every validator registered for the command type in registration order")
+    public void shouldRunValidatorsSequentially() {
+        // given
+        Mediate mediate = new MediateConfigurer()
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(),
+                        List.of(new MediateTestClassPack.PositiveNumberValidator(), new MediateTestClassPack.EvenNumberValidator()),
+                        ValidatorExecution.SEQUENTIAL)
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.NumberCommand(2));
+
+        // then
+        IllegalArgumentException exception = assertThrowsExactly(IllegalArgumentException.class,
+                () -> mediate.send(new MediateTestClassPack.NumberCommand(-3)));
+        assertEquals("Value -3 is not positive, Value -3 is not even", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should run validators at the same time and merge their errors with PARALLEL validator execution")
+    public void shouldRunValidatorsInParallel() {
+        // given
+        ForkJoinPool pool = new ForkJoinPool(2);
+        CountDownLatch running = new CountDownLatch(2);
+        Mediate mediate = new MediateConfigurer()
+                .registerExecutor(pool)
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(),
+                        List.of(new MediateTestClassPack.PositiveNumberValidator(), new MediateTestClassPack.EvenNumberValidator(),
+                                new MediateTestClassPack.AwaitingNumberValidator(running), new MediateTestClassPack.AwaitingNumberValidator(running)),
+                        ValidatorExecution.PARALLEL)
+                .build();
+
+        // when
+        IllegalArgumentException exception = assertThrowsExactly(IllegalArgumentException.class,
+                () -> mediate.send(new MediateTestClassPack.NumberCommand(-3)));
+        pool.shutdown();
+
+        // then
+        assertEquals("Value -3 is not positive, Value -3 is not even", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJWrongParameterException when validators run in parallel and error builder does not implement MergeableErrorBuilder")
+    public void shouldThrowExceptionForParallelValidatorsWithoutMerge() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer()
+                .registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder());
+        List<CommandValidator<MediateTestClassPack.TestCommand, MediateTestClassPack.TestErrorBuilder>> validators =
+                List.of(new MediateTestClassPack.TestCommandValidator(), new MediateTestClassPack.TestCommandValidator());
+
+        // when
+        // then
+        MediateJWrongParameterException exception = assertThrowsExactly(MediateJWrongParameterException.class,
+                () -> configurer.register(new MediateTestClassPack.TestCommandHandler(), validators, ValidatorExecution.PARALLEL));
+        assertEquals("Error builder TestErrorBuilder has to implement MergeableErrorBuilder to run validators in parallel", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJWrongParameterException when error builder without merge is registered after validators running in parallel")
+    public void shouldThrowExceptionForErrorBuilderWithoutMergeRegisteredAfterParallelValidators() {
+        // given
+        MediateConfigurer configurer = new MediateConfigurer()
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(),
+                        List.of(new MediateTestClassPack.PositiveNumberValidator(), new MediateTestClassPack.EvenNumberValidator()),
+                        ValidatorExecution.PARALLEL);
+
+        // when
+        // then
+        assertThrowsExactly(MediateJWrongParameterException.class, () -> configurer.registerErrorBuilder(new MediateTestClassPack.TestErrorBuilder()));
+        assertThrowsExactly(MediateJWrongParameterException.class, () -> configurer.registerErrorBuilderSupplier(MediateTestClassPack.TestErrorBuilder::new));
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJConflictException on build if error builder of validators running in parallel doesn't have no args constructor in ONE mode")
+    public void shouldThrowExceptionOnBuildForParallelValidatorsWithoutNoArgsConstructor() {
+        // given
+        MediateConfigurer configurer = new MediateCoreConfigurer()
+                .errorBuilderInstanceMode(ErrorBuilderInstanceMode.ONE)
+                .build()
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilderWithoutNoArgsConstructor("test"))
+                .register(new MediateTestClassPack.NumberCommandHandler(),
+                        List.of(new MediateTestClassPack.NumberValidatorWithoutNoArgsErrorBuilder(), new MediateTestClassPack.NumberValidatorWithoutNoArgsErrorBuilder()),
+                        ValidatorExecution.PARALLEL);
+
+        // when
+        // then
+        assertThrowsExactly(MediateJConflictException.class, configurer::build);
+    }
+
+    @Test
+    @DisplayName("Should cancel validators not started yet when validator on the sending thread throws with PARALLEL validator execution")
+    public void shouldCancelForkedValidatorsWhenInlineValidatorThrows() throws InterruptedException {
+        // given
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.await();
+        MediateTestClassPack.PositiveNumberValidator forked = new MediateTestClassPack.PositiveNumberValidator();
+        Mediate mediate = new MediateConfigurer()
+                .registerExecutor(pool)
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(),
+                        List.of(new MediateTestClassPack.FailingNumberValidator(), forked),
+                        ValidatorExecution.PARALLEL)
+                .build();
+
+        // when
+        assertThrowsExactly(IllegalStateException.class, () -> mediate.send(new MediateTestClassPack.NumberCommand(1)));
+        release.countDown();
+        pool.shutdown();
+
+        // then
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, forked.validations());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for validators on the pool and throw MediateJTimeoutException once deadline of the send expires")
+    public void shouldStopWaitingForParallelValidatorsAfterDeadline() throws InterruptedException {
+        // given
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.await();
+        MediateTestClassPack.PositiveNumberValidator forked = new MediateTestClassPack.PositiveNumberValidator();
+        Mediate mediate = new MediateConfigurer()
+                .registerExecutor(pool)
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(),
+                        List.of(new MediateTestClassPack.EvenNumberValidator(), forked),
+                        ValidatorExecution.PARALLEL)
+                .deadline(MediateTestClassPack.NumberCommand.class, Duration.ofMillis(50))
+                .build();
+
+        // when
+        MediateJTimeoutException exception = assertThrowsExactly(MediateJTimeoutException.class,
+                () -> mediate.send(new MediateTestClassPack.NumberCommand(2)));
+        release.countDown();
+        pool.shutdown();
+
+        // then
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals(0, forked.validations());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    @DisplayName("Should skip validator for command equal to an already validated one and keep validating invalid commands")
+    public void shouldSkipValidatorForCachedValidation() {
+        // given
+        MediateTestClassPack.PositiveNumberValidator validator = new MediateTestClassPack.PositiveNumberValidator();
+        Mediate mediate = new MediateConfigurer()
+                .registerErrorBuilder(new MediateTestClassPack.CollectingErrorBuilder())
+                .register(new MediateTestClassPack.NumberCommandHandler(), validator)
+                .cacheValidation(MediateTestClassPack.NumberCommand.class, 10, Duration.ofMinutes(1))
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.NumberCommand(1));
+        mediate.send(new MediateTestClassPack.NumberCommand(1));
+        mediate.send(new MediateTestClassPack.NumberCommand(2));
+        assertThrowsExactly(IllegalArgumentException.class, () -> mediate.send(new MediateTestClassPack.NumberCommand(-1)));
+        assertThrowsExactly(IllegalArgumentException.class, () -> mediate.send(new MediateTestClassPack.NumberCommand(-1)));
+
+        // then
+        assertEquals(4, validator.validations());
+        CacheSnapshot cache = mediate.metrics().cache(MediateTestClassPack.NumberCommand.class, CacheKind.VALIDATION);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    @DisplayName("Should interrupt handler of command type with deadline and throw MediateJTimeoutException with cleared interrupt")
+    public void shouldInterruptHandlerAfterDeadline() {
+        // given
+        MediateTestClassPack.SleepingCommandHandler handler = new MediateTestClassPack.SleepingCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .register(handler)
+                .deadline(MediateTestClassPack.SleepingCommand.class, Duration.ofMillis(50))
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.SleepingCommand(0));
+        MediateJTimeoutException exception = assertThrowsExactly(MediateJTimeoutException.class,
+                () -> mediate.send(new MediateTestClassPack.SleepingCommand(10_000)));
+
+        // then
+        assertEquals(1, handler.handled());
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    @DisplayName("Should throw MediateJWrongParameterException on build when deadline or validation cache is set for a query type")
+    public void shouldRejectDeadlineAndValidationCacheOfQueryType() {
+        // given
+        MediateConfigurer deadline = new MediateConfigurer()
+                .registerQueryHandler(new MediateTestClassPack.TestQueryHandler())
+                .deadline(MediateTestClassPack.TestQuery.class, Duration.ofSeconds(1));
+        MediateConfigurer validationCache = new MediateConfigurer()
+                .registerQueryHandler(new MediateTestClassPack.TestQueryHandler())
+                .cacheValidation(MediateTestClassPack.TestQuery.class, 10, Duration.ZERO);
+
+        // when
+        // then
+        MediateJWrongParameterException exception = assertThrowsExactly(MediateJWrongParameterException.class, deadline::build);
+        assertEquals("Deadline applies only to commands, " + MediateTestClassPack.TestQuery.class.getCanonicalName() + " is a query", exception.getMessage());
+        assertThrowsExactly(MediateJWrongParameterException.class, validationCache::build);
+    }
+
+    @Test
+    @DisplayName("Should bound single send with given timeout over deadline of command type")
+    public void shouldBoundSendWithGivenTimeout() {
+        // given
+        MediateTestClassPack.SleepingCommandHandler handler = new MediateTestClassPack.SleepingCommandHandler();
+        Mediate mediate = new MediateConfigurer()
+                .register(handler)
+                .deadline(MediateTestClassPack.SleepingCommand.class, Duration.ofMillis(20))
+                .build();
+
+        // when
+        mediate.send(new MediateTestClassPack.SleepingCommand(100), Duration.ofSeconds(10));
+
+        // then
+        assertEquals(1, handler.handled());
+        assertThrowsExactly(MediateJTimeoutException.class, () -> mediate.send(new MediateTestClassPack.SleepingCommand(10_000), Duration.ofMillis(50)));
+        assertThrowsExactly(MediateJWrongParameterException.class, () -> mediate.send(new MediateTestClassPack.SleepingCommand(0), Duration.ZERO));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
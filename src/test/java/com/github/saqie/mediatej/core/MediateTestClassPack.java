@@ -1,14 +1,59 @@
 package com.github.saqie.mediatej.core;
 
+import com.github.saqie.mediatej.api.BatchCommandHandler;
 import com.github.saqie.mediatej.api.Command;
 import com.github.saqie.mediatej.api.CommandHandler;
 import com.github.saqie.mediatej.api.CommandValidator;
 import com.github.saqie.mediatej.api.ErrorBuilder;
+import com.github.saqie.mediatej.api.Event;
+import com.github.saqie.mediatej.api.PartitionedCommand;
+import com.github.saqie.mediatej.api.EventHandler;
+import com.github.saqie.mediatej.api.IdempotentCommand;
+import com.github.saqie.mediatej.api.MediateJ;
+import com.github.saqie.mediatej.api.MergeableErrorBuilder;
+import com.github.saqie.mediatej.api.PipelineBehavior;
+import com.github.saqie.mediatej.api.PipelineStep;
+import com.github.saqie.mediatej.api.PureCommandValidator;
+import com.github.saqie.mediatej.api.Query;
+import com.github.saqie.mediatej.api.QueryHandler;
+import com.github.saqie.mediatej.core.index.MediateTypeIndex;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class MediateTestClassPack {
 
     public static class TestErrorBuilder implements ErrorBuilder {
 
+        private int resets;
+
+        @Override
+        public void build() {
+
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+
+        public int resets() {
+            return resets;
+        }
+    }
+
+    public static class TestErrorBuilderWithoutNoArgsConstructor implements ErrorBuilder {
+
+        public TestErrorBuilderWithoutNoArgsConstructor(String name) {
+        }
+
         @Override
         public void build() {
 
@@ -35,6 +80,14 @@ class MediateTestClassPack {
         }
     }
 
+    public static class RejectingTestCommandValidator implements CommandValidator<TestCommand, TestErrorBuilder> {
+
+        @Override
+        public void validate(TestCommand command, TestErrorBuilder errorBuilder) {
+            throw new IllegalArgumentException("Rejected");
+        }
+    }
+
     public static class TestCommandHandlerSecond implements CommandHandler<TestCommand> {
 
         @Override
@@ -108,5 +161,648 @@ class MediateTestClassPack {
         }
     }
 
+    public static class CountingCommandHandler implements CommandHandler<TestCommand> {
+
+        private int handled;
+
+        @Override
+        public void handle(TestCommand command) {
+            handled++;
+        }
+
+        public int handled() {
+            return handled;
+        }
+    }
+
+    public static class AtomicCountingCommandHandler implements CommandHandler<TestCommand> {
+
+        private final AtomicInteger handled = new AtomicInteger();
+
+        @Override
+        public void handle(TestCommand command) {
+            handled.incrementAndGet();
+        }
+
+        public int handled() {
+            return handled.get();
+        }
+    }
+
+    public static class ConcurrencyTrackingCommandHandler implements CommandHandler<TestCommand> {
+
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        public void handle(TestCommand command) {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        public int maxRunning() {
+            return maxRunning.get();
+        }
+    }
+
+    public static class BatchSecondTestCommandHandler implements BatchCommandHandler<SecondTestCommand> {
+
+        private final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public void handleAll(List<SecondTestCommand> commands) {
+            batchSizes.add(commands.size());
+        }
+
+        public List<Integer> batchSizes() {
+            return batchSizes;
+        }
+    }
+
+    public static class TestQuery implements Query<String> {
+
+        private final String name;
+
+        public TestQuery(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Objects.equals(name, ((TestQuery) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name);
+        }
+    }
+
+    public static class TestQueryHandler implements QueryHandler<TestQuery, String> {
+
+        private int handled;
+
+        @Override
+        public String handle(TestQuery query) {
+            handled++;
+            return "Hello " + query.name;
+        }
+
+        public int handled() {
+            return handled;
+        }
+    }
+
+    public static class RecordingPipelineBehavior implements PipelineBehavior {
+
+        private final String name;
+        private final List<String> calls;
+
+        public RecordingPipelineBehavior(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public <T extends Command> void handle(T command, PipelineStep<T> next) {
+            calls.add(name + " before");
+            next.proceed(command);
+            calls.add(name + " after");
+        }
+    }
+
+    public static class SecondTestCommandOnlyPipelineBehavior extends RecordingPipelineBehavior {
+
+        public SecondTestCommandOnlyPipelineBehavior(String name, List<String> calls) {
+            super(name, calls);
+        }
+
+        @Override
+        public boolean supports(Class<? extends Command> commandType) {
+            return SecondTestCommand.class == commandType;
+        }
+    }
+
+
+
+    public interface AuditedHandler {
+
+    }
 
+    public static class AuditedTestCommandHandler implements AuditedHandler, CommandHandler<TestCommand> {
+
+        @Override
+        public void handle(TestCommand command) {
+
+        }
+    }
+
+    public abstract static class AbstractTestCommandHandler<T extends Command> implements CommandHandler<T> {
+
+    }
+
+    public static class InheritedTestCommandHandler extends AbstractTestCommandHandler<TestCommand> {
+
+        @Override
+        public void handle(TestCommand command) {
+
+        }
+    }
+
+    public abstract static class AbstractTestCommandValidator<T extends Command, R extends ErrorBuilder> implements CommandValidator<T, R> {
+
+    }
+
+    public static class InheritedTestCommandValidator extends AbstractTestCommandValidator<TestCommand, TestErrorBuilder> {
+
+        @Override
+        public void validate(TestCommand command, TestErrorBuilder errorBuilder) {
+
+        }
+    }
+
+    public static class GenericTestQuery<T> implements Query<List<T>> {
+
+    }
+
+    public static class GenericTestQueryHandler implements QueryHandler<GenericTestQuery<String>, List<String>> {
+
+        @Override
+        public List<String> handle(GenericTestQuery<String> query) {
+            return List.of();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static class IndexedTestCommandHandler implements CommandHandler {
+
+        @Override
+        public void handle(Command command) {
+
+        }
+    }
+
+    public static class TestTypeIndex implements MediateTypeIndex {
+
+        @Override
+        public Class<?> commandType(Class<?> handlerType) {
+            return handlerType == IndexedTestCommandHandler.class || handlerType == DualRoleHandler.class ? TestCommand.class : null;
+        }
+
+        @Override
+        public Class<?> queryType(Class<?> queryHandlerType) {
+            return null;
+        }
+
+        @Override
+        public Class<?> eventType(Class<?> eventHandlerType) {
+            return eventHandlerType == DualRoleHandler.class ? TestEvent.class : null;
+        }
+
+        @Override
+        public Class<?> validatedType(Class<?> validatorType) {
+            return null;
+        }
+
+        @Override
+        public Class<?> errorBuilderType(Class<?> validatorType) {
+            return null;
+        }
+    }
+
+    public static class DualRoleHandler implements CommandHandler<TestCommand>, EventHandler<TestEvent> {
+
+        private final List<Object> handled = new ArrayList<>();
+
+        @Override
+        public void handle(TestCommand command) {
+            handled.add(command);
+        }
+
+        @Override
+        public void handle(TestEvent event) {
+            handled.add(event);
+        }
+
+        public List<Object> handled() {
+            return handled;
+        }
+    }
+
+    public static class SubTestCommand extends TestCommand {
+
+    }
+
+    public interface MarkerCommand extends Command {
+
+    }
+
+    public static class MarkedTestCommand implements MarkerCommand {
+
+    }
+
+    public static class CountingMarkerCommandHandler implements CommandHandler<MarkerCommand> {
+
+        private int handled;
+
+        @Override
+        public void handle(MarkerCommand command) {
+            handled++;
+        }
+
+        public int handled() {
+            return handled;
+        }
+    }
+
+    public static class TestEvent implements Event {
+
+    }
+
+    public static class SubTestEvent extends TestEvent {
+
+    }
+
+    public static class RecordingEventHandler implements EventHandler<TestEvent> {
+
+        private final String name;
+        private final List<String> calls;
+
+        public RecordingEventHandler(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public void handle(TestEvent event) {
+            calls.add(name);
+        }
+    }
+
+    public static class RecordingSubTestEventHandler implements EventHandler<SubTestEvent> {
+
+        private final String name;
+        private final List<String> calls;
+
+        public RecordingSubTestEventHandler(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public void handle(SubTestEvent event) {
+            calls.add(name);
+        }
+    }
+
+    public static class FailingEventHandler implements EventHandler<TestEvent> {
+
+        @Override
+        public void handle(TestEvent event) {
+            throw new IllegalStateException("Event handler failed");
+        }
+    }
+
+    public static class PartitionedTestCommand implements PartitionedCommand {
+
+        private final String key;
+        private final int sequence;
+
+        public PartitionedTestCommand(String key, int sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public Object partitionKey() {
+            return key;
+        }
+    }
+
+    public static class OrderRecordingCommandHandler implements CommandHandler<PartitionedTestCommand> {
+
+        private final Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        private final AtomicInteger overlaps = new AtomicInteger();
+
+        @Override
+        public void handle(PartitionedTestCommand command) {
+            AtomicInteger keyRunning = running.computeIfAbsent(command.key, key -> new AtomicInteger());
+            if (keyRunning.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            // Unsynchronized on purpose, commands of one key are expected to run one at a time
+            sequences.computeIfAbsent(command.key, key -> new ArrayList<>()).add(command.sequence);
+            keyRunning.decrementAndGet();
+        }
+
+        public List<Integer> sequences(String key) {
+            return sequences.get(key);
+        }
+
+        public int overlaps() {
+            return overlaps.get();
+        }
+    }
+
+    public static class BlockingPartitionedCommandHandler implements CommandHandler<PartitionedTestCommand> {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger handled = new AtomicInteger();
+
+        @Override
+        public void handle(PartitionedTestCommand command) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.incrementAndGet();
+        }
+
+        public void awaitStarted() throws InterruptedException {
+            started.await();
+        }
+
+        public void release() {
+            release.countDown();
+        }
+
+        public int handled() {
+            return handled.get();
+        }
+    }
+
+    public static class IdempotentTestCommand implements IdempotentCommand {
+
+        private final String requestId;
+        private final boolean failing;
+
+        public IdempotentTestCommand(String requestId, boolean failing) {
+            this.requestId = requestId;
+            this.failing = failing;
+        }
+
+        @Override
+        public Object idempotencyKey() {
+            return requestId;
+        }
+    }
+
+    public static class IdempotentTestCommandHandler implements CommandHandler<IdempotentTestCommand> {
+
+        private int handled;
+
+        @Override
+        public void handle(IdempotentTestCommand command) {
+            if (command.failing) {
+                throw new IllegalStateException("Command handler failed");
+            }
+            handled++;
+        }
+
+        public int handled() {
+            return handled;
+        }
+    }
+
+    public static class JournaledTestCommand implements Command, Serializable {
+
+        private final String value;
+
+        public JournaledTestCommand(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
+    }
+
+    public static class JournaledTestCommandHandler implements CommandHandler<JournaledTestCommand> {
+
+        private final List<String> handled = new ArrayList<>();
+
+        @Override
+        public void handle(JournaledTestCommand command) {
+            handled.add(command.value);
+        }
+
+        public List<String> handled() {
+            return handled;
+        }
+    }
+
+    public static class JournaledTestCommandValidator implements CommandValidator<JournaledTestCommand, TestErrorBuilder> {
+
+        @Override
+        public void validate(JournaledTestCommand command, TestErrorBuilder errorBuilder) {
+            if (command.value.isEmpty()) {
+                throw new IllegalArgumentException("Value cannot be empty");
+            }
+        }
+    }
+
+    public static class CollectingErrorBuilder implements MergeableErrorBuilder {
+
+        private final List<String> errors = new ArrayList<>();
+        private int builds;
+
+        public void addError(String error) {
+            errors.add(error);
+        }
+
+        @Override
+        public void build() {
+            builds++;
+            if (!errors.isEmpty()) {
+                throw new IllegalArgumentException(String.join(", ", errors));
+            }
+        }
+
+        @Override
+        public void reset() {
+            errors.clear();
+        }
+
+        @Override
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+
+        @Override
+        public void merge(ErrorBuilder other) {
+            errors.addAll(((CollectingErrorBuilder) other).errors);
+        }
+
+        public int builds() {
+            return builds;
+        }
+    }
+
+    public static class CollectingErrorBuilderWithoutNoArgsConstructor extends CollectingErrorBuilder {
+
+        public CollectingErrorBuilderWithoutNoArgsConstructor(String name) {
+        }
+    }
+
+    public static class NumberValidatorWithoutNoArgsErrorBuilder implements CommandValidator<NumberCommand, CollectingErrorBuilderWithoutNoArgsConstructor> {
+
+        @Override
+        public void validate(NumberCommand command, CollectingErrorBuilderWithoutNoArgsConstructor errorBuilder) {
+
+        }
+    }
+
+    public static class NumberCommand implements Command {
+
+        private final int value;
+
+        public NumberCommand(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return value == ((NumberCommand) o).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(value);
+        }
+    }
+
+    public static class NumberCommandHandler implements CommandHandler<NumberCommand> {
+
+        @Override
+        public void handle(NumberCommand command) {
+
+        }
+    }
+
+    public static class PositiveNumberValidator implements CommandValidator<NumberCommand, CollectingErrorBuilder> {
+
+        private int validations;
+
+        @Override
+        public void validate(NumberCommand command, CollectingErrorBuilder errorBuilder) {
+            validations++;
+            if (command.value <= 0) {
+                errorBuilder.addError("Value " + command.value + " is not positive");
+            }
+        }
+
+        public int validations() {
+            return validations;
+        }
+    }
+
+    public static class NestedSendingNumberValidator implements CommandValidator<NumberCommand, CollectingErrorBuilder> {
+
+        private MediateJ mediate;
+
+        public void mediate(MediateJ mediate) {
+            this.mediate = mediate;
+        }
+
+        @Override
+        public void validate(NumberCommand command, CollectingErrorBuilder errorBuilder) {
+            if (command.value <= 0) {
+                errorBuilder.addError("Value " + command.value + " is not positive");
+            }
+            if (command.value < -100) {
+                mediate.send(new NumberCommand(1));
+            }
+        }
+    }
+
+    public static class PurePositiveNumberValidator extends PositiveNumberValidator implements PureCommandValidator<NumberCommand, CollectingErrorBuilder> {
+
+        @Override
+        public boolean isValid(NumberCommand command) {
+            return command.value > 0;
+        }
+    }
+
+    public static class EvenNumberValidator implements CommandValidator<NumberCommand, CollectingErrorBuilder> {
+
+        @Override
+        public void validate(NumberCommand command, CollectingErrorBuilder errorBuilder) {
+            if (command.value % 2 != 0) {
+                errorBuilder.addError("Value " + command.value + " is not even");
+            }
+        }
+    }
+
+    public static class FailingNumberValidator implements CommandValidator<NumberCommand, CollectingErrorBuilder> {
+
+        @Override
+        public void validate(NumberCommand command, CollectingErrorBuilder errorBuilder) {
+            throw new IllegalStateException("Validator failure");
+        }
+    }
+
+    public static class AwaitingNumberValidator implements CommandValidator<NumberCommand, CollectingErrorBuilder> {
+
+        private final CountDownLatch running;
+
+        public AwaitingNumberValidator(CountDownLatch running) {
+            this.running = running;
+        }
+
+        @Override
+        public void validate(NumberCommand command, CollectingErrorBuilder errorBuilder) {
+            running.countDown();
+            try {
+                if (!running.await(5, TimeUnit.SECONDS)) {
+                    errorBuilder.addError("Validators did not run in parallel");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static class SleepingCommand implements Command {
+
+        private final long millis;
+
+        public SleepingCommand(long millis) {
+            this.millis = millis;
+        }
+    }
+
+    public static class SleepingCommandHandler implements CommandHandler<SleepingCommand> {
+
+        private int handled;
+
+        @Override
+        public void handle(SleepingCommand command) {
+            try {
+                Thread.sleep(command.millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while handling", e);
+            }
+            handled++;
+        }
+
+        public int handled() {
+            return handled;
+        }
+    }
 }
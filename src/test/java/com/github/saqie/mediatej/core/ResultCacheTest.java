@@ -0,0 +1,79 @@
+package com.github.saqie.mediatej.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    @Test
+    @DisplayName("Should return cached value including null values")
+    public void shouldReturnCachedValue() {
+        // given
+        ResultCache<String, String> cache = new ResultCache<>(10, 0);
+
+        // when
+        cache.put("first", "value");
+        cache.put("second", null);
+
+        // then
+        assertEquals("value", cache.get("first").value());
+        assertNotNull(cache.get("second"));
+        assertNull(cache.get("second").value());
+        assertNull(cache.get("third"));
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entry when maximum size is exceeded")
+    public void shouldEvictLeastRecentlyUsedEntry() {
+        // given
+        ResultCache<Integer, Integer> cache = new ResultCache<>(1, 0);
+        cache.put(1, 1);
+
+        // when
+        cache.put(2, 2);
+
+        // then
+        assertNull(cache.get(1));
+        assertEquals(2, cache.get(2).value());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should not return entry after its time to live")
+    public void shouldNotReturnExpiredEntry() throws InterruptedException {
+        // given
+        ResultCache<String, String> cache = new ResultCache<>(10, TimeUnit.MILLISECONDS.toNanos(1));
+        cache.put("first", "value");
+
+        // when
+        Thread.sleep(5);
+
+        // then
+        assertNull(cache.get("first"));
+    }
+
+
+    @Test
+    @DisplayName("Should store value only once and count rejected puts as hits")
+    public void shouldStoreValueOnlyOnceWithPutIfAbsent() {
+        // given
+        ResultCache<String, Boolean> cache = new ResultCache<>(10, 0);
+
+        // when
+        boolean first = cache.putIfAbsent("key", Boolean.TRUE);
+        boolean second = cache.putIfAbsent("key", Boolean.TRUE);
+        cache.remove("key");
+        boolean third = cache.putIfAbsent("key", Boolean.TRUE);
+
+        // then
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(third);
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.saqie.mediatej.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read class names written to scan index")
+    public void shouldReadWrittenClassNames() {
+        // given
+        Path file = directory.resolve("scan.idx");
+        List<String> packages = List.of("com.example.orders");
+        List<String> classNames = List.of("com.example.orders.CreateOrderHandler", "com.example.orders.CreateOrderValidator");
+
+        // when
+        ScanIndex.write(file, 42, packages, classNames);
+
+        // then
+        assertEquals(classNames, ScanIndex.read(file, 42, packages));
+    }
+
+    @Test
+    @DisplayName("Should ignore scan index written for another class path or other packages")
+    public void shouldIgnoreStaleScanIndex() {
+        // given
+        Path file = directory.resolve("scan.idx");
+        List<String> packages = List.of("com.example.orders");
+
+        // when
+        ScanIndex.write(file, 42, packages, List.of("com.example.orders.CreateOrderHandler"));
+
+        // then
+        assertNull(ScanIndex.read(file, 43, packages));
+        assertNull(ScanIndex.read(file, 42, List.of("com.example.payments")));
+    }
+
+    @Test
+    @DisplayName("Should ignore missing or corrupted scan index")
+    public void shouldIgnoreMissingOrCorruptedScanIndex() throws Exception {
+        // given
+        Path file = directory.resolve("scan.idx");
+        List<String> packages = List.of("com.example.orders");
+
+        // when
+        // then
+        assertNull(ScanIndex.read(file, 42, packages));
+        Files.write(file, new byte[]{1, 2, 3});
+        assertNull(ScanIndex.read(file, 42, packages));
+    }
+}
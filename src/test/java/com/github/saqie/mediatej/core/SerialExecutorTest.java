@@ -0,0 +1,90 @@
+package com.github.saqie.mediatej.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialExecutorTest {
+
+    @Test
+    @DisplayName("Should run tasks in submission order when drains are deferred on shared executor")
+    public void shouldRunTasksInSubmissionOrder() {
+        // given
+        List<Runnable> scheduledDrains = new ArrayList<>();
+        SerialExecutor lane = new SerialExecutor(scheduledDrains::add);
+        List<Integer> executed = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            lane.execute(() -> executed.add(task));
+        }
+        while (!scheduledDrains.isEmpty()) {
+            scheduledDrains.remove(0).run();
+        }
+
+        // then
+        assertEquals(100, executed.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, executed.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should rethrow RejectedExecutionException without running rejected task when shared executor rejects drain")
+    public void shouldRethrowRejectionFromSharedExecutor() {
+        // given
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("Closed");
+        };
+        SerialExecutor lane = new SerialExecutor(rejecting);
+        List<Integer> executed = new ArrayList<>();
+
+        // when
+        assertThrowsExactly(RejectedExecutionException.class, () -> lane.execute(() -> executed.add(1)));
+
+        // then
+        assertTrue(executed.isEmpty());
+        assertThrowsExactly(RejectedExecutionException.class, () -> lane.execute(() -> executed.add(2)));
+    }
+
+    @Test
+    @DisplayName("Should keep draining lane after a task throws an error")
+    public void shouldKeepDrainingAfterTaskThrowsError() {
+        // given
+        List<Runnable> scheduledDrains = new ArrayList<>();
+        SerialExecutor lane = new SerialExecutor(scheduledDrains::add);
+        List<Integer> executed = new ArrayList<>();
+        Thread.UncaughtExceptionHandler handler = Thread.currentThread().getUncaughtExceptionHandler();
+        List<Throwable> reported = new ArrayList<>();
+        Thread.currentThread().setUncaughtExceptionHandler((thread, throwable) -> reported.add(throwable));
+
+        // when
+        try {
+            lane.execute(() -> {
+                throw new AssertionError("Task failure");
+            });
+            lane.execute(() -> executed.add(1));
+            while (!scheduledDrains.isEmpty()) {
+                scheduledDrains.remove(0).run();
+            }
+            lane.execute(() -> executed.add(2));
+            while (!scheduledDrains.isEmpty()) {
+                scheduledDrains.remove(0).run();
+            }
+        } finally {
+            Thread.currentThread().setUncaughtExceptionHandler(handler);
+        }
+
+        // then
+        assertEquals(List.of(1, 2), executed);
+        assertEquals(1, reported.size());
+        assertInstanceOf(AssertionError.class, reported.get(0));
+    }
+}
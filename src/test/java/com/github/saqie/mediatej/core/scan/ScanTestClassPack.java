@@ -0,0 +1,55 @@
+package com.github.saqie.mediatej.core.scan;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandHandler;
+import com.github.saqie.mediatej.api.CommandValidator;
+import com.github.saqie.mediatej.api.ErrorBuilder;
+import com.github.saqie.mediatej.api.Query;
+import com.github.saqie.mediatej.api.QueryHandler;
+
+public class ScanTestClassPack {
+
+    public static class ScanTestErrorBuilder implements ErrorBuilder {
+
+        @Override
+        public void build() {
+
+        }
+    }
+
+    public static class ScanTestCommand implements Command {
+
+    }
+
+    public static class ScanTestCommandHandler implements CommandHandler<ScanTestCommand> {
+
+        @Override
+        public void handle(ScanTestCommand command) {
+
+        }
+    }
+
+    public static class ScanTestCommandValidator implements CommandValidator<ScanTestCommand, ScanTestErrorBuilder> {
+
+        @Override
+        public void validate(ScanTestCommand command, ScanTestErrorBuilder errorBuilder) {
+
+        }
+    }
+
+    public static class ScanTestQuery implements Query<String> {
+
+    }
+
+    static class ScanTestQueryHandler implements QueryHandler<ScanTestQuery, String> {
+
+        @Override
+        public String handle(ScanTestQuery query) {
+            return "scanned";
+        }
+    }
+
+    public abstract static class AbstractScanTestCommandHandler<T extends Command> implements CommandHandler<T> {
+
+    }
+}
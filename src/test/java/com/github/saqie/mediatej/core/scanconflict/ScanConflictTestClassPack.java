@@ -0,0 +1,37 @@
+package com.github.saqie.mediatej.core.scanconflict;
+
+import com.github.saqie.mediatej.api.Command;
+import com.github.saqie.mediatej.api.CommandHandler;
+import com.github.saqie.mediatej.api.CommandValidator;
+import com.github.saqie.mediatej.core.scan.ScanTestClassPack.ScanTestErrorBuilder;
+
+public class ScanConflictTestClassPack {
+
+    public static class ScanConflictTestCommand implements Command {
+
+    }
+
+    public static class ScanConflictTestCommandHandler implements CommandHandler<ScanConflictTestCommand> {
+
+        @Override
+        public void handle(ScanConflictTestCommand command) {
+
+        }
+    }
+
+    public static class FirstScanConflictTestCommandValidator implements CommandValidator<ScanConflictTestCommand, ScanTestErrorBuilder> {
+
+        @Override
+        public void validate(ScanConflictTestCommand command, ScanTestErrorBuilder errorBuilder) {
+
+        }
+    }
+
+    public static class SecondScanConflictTestCommandValidator implements CommandValidator<ScanConflictTestCommand, ScanTestErrorBuilder> {
+
+        @Override
+        public void validate(ScanConflictTestCommand command, ScanTestErrorBuilder errorBuilder) {
+
+        }
+    }
+}